@@ -0,0 +1,823 @@
+package access2csv;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.DataType;
+
+/**
+ * Writes rows as an Arrow IPC file: typed column vectors in record batches
+ * of {@link ExportOptions#recordBatchSize} rows, with the schema, message
+ * framing and footer encoded by hand with {@link FlatBufferBuilder}.
+ * <p>
+ * Integers, floating point numbers, booleans and binary values keep their
+ * Access types, currency and decimal columns become 128-bit decimals, and
+ * dates become timestamps in milliseconds without a time zone, holding the
+ * local date time of the database. TEXT columns whose first batch repeats
+ * values (at most half of them distinct) are dictionary encoded with 32-bit
+ * indices; values first seen in later batches are added with delta
+ * dictionary batches. An IPC file cannot change the type of a column or
+ * replace a dictionary, so once {@link #MAX_DICTIONARY_ENTRIES} values are
+ * known, values which are not among them are no longer looked up: they are
+ * added to the dictionary again for every row, which costs as much as plain
+ * UTF-8 and keeps a column that only repeats early from holding every
+ * distinct value of the table in memory.
+ */
+class ArrowRecordWriter implements RecordWriter {
+	static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+	static final int MAX_DICTIONARY_ENTRIES = 1 << 16;
+
+	// Schema.fbs enumerations
+	private static final short METADATA_V5 = 4;
+	private static final byte HEADER_SCHEMA = 1;
+	private static final byte HEADER_DICTIONARY_BATCH = 2;
+	private static final byte HEADER_RECORD_BATCH = 3;
+	private static final byte TYPE_INT = 2;
+	private static final byte TYPE_FLOATING_POINT = 3;
+	private static final byte TYPE_BINARY = 4;
+	private static final byte TYPE_UTF8 = 5;
+	private static final byte TYPE_BOOL = 6;
+	private static final byte TYPE_DECIMAL = 7;
+	private static final byte TYPE_TIMESTAMP = 10;
+	private static final short PRECISION_SINGLE = 1;
+	private static final short PRECISION_DOUBLE = 2;
+	private static final short TIME_UNIT_MILLISECOND = 1;
+
+	private final WritableByteChannel out;
+	private final Vector[] vectors;
+	private final int batchSize;
+	private final List<long[]> dictionaryBlocks = new ArrayList<long[]>();
+	private final List<long[]> recordBatchBlocks = new ArrayList<long[]>();
+	private int rows;
+	private long position;
+	private boolean started;
+
+	ArrowRecordWriter(final Column[] columns, final WritableByteChannel out, final ExportOptions options) {
+		this.out = out;
+		this.batchSize = Math.max(1, options.recordBatchSize);
+		this.vectors = new Vector[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			vectors[i] = vector(columns[i]);
+		}
+	}
+
+	static Vector vector(final Column column) {
+		switch (column.getType()) {
+		case BYTE:
+			return new FixedWidthVector(column, 1);
+		case INT:
+			return new FixedWidthVector(column, 2);
+		case LONG:
+		case FLOAT:
+			return new FixedWidthVector(column, 4);
+		case BIG_INT:
+		case DOUBLE:
+		case SHORT_DATE_TIME:
+			return new FixedWidthVector(column, 8);
+		case MONEY:
+		case NUMERIC:
+			return new FixedWidthVector(column, 16);
+		case BOOLEAN:
+			return new BooleanVector(column);
+		case BINARY:
+		case OLE:
+			return new VariableWidthVector(column, TYPE_BINARY);
+		case TEXT:
+			return new TextVector(column, MAX_DICTIONARY_ENTRIES);
+		default:
+			return new VariableWidthVector(column, TYPE_UTF8);
+		}
+	}
+
+	/**
+	 * The schema carries the column names, so no separate header is written.
+	 */
+	@Override
+	public void writeHeader(final Column[] columns) {
+	}
+
+	@Override
+	public void writeRecord(final Object[] values) throws IOException {
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i].append(values[i]);
+		}
+		if (++rows == batchSize) {
+			writeBatch();
+		}
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return position;
+	}
+
+	private void start() throws IOException {
+		started = true;
+		write(Arrays.copyOf(MAGIC, 8));
+		long dictionaryId = 0;
+		for (final Vector vector : vectors) {
+			vector.chooseEncoding();
+			if (vector.isDictionaryEncoded()) {
+				((TextVector) vector).dictionaryId = dictionaryId++;
+			}
+		}
+		final FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+		final int schema = schema(builder);
+		writeMessage(builder, HEADER_SCHEMA, schema, new Body());
+	}
+
+	private void writeBatch() throws IOException {
+		if (!started) {
+			start();
+		}
+		for (final Vector vector : vectors) {
+			if (vector.isDictionaryEncoded()) {
+				final TextVector text = (TextVector) vector;
+				text.encodeIndices();
+				if (!text.dictionaryWritten || text.hasNewEntries()) {
+					final Body body = new Body();
+					final FlatBufferBuilder builder = new FlatBufferBuilder(256);
+					final int data = text.writeDictionary(builder, body);
+					builder.startTable(3);
+					builder.addLongField(0, text.dictionaryId);
+					builder.addOffsetField(1, data);
+					builder.addBooleanField(2, text.dictionaryWritten);
+					final int batch = builder.endTable();
+					dictionaryBlocks.add(writeMessage(builder, HEADER_DICTIONARY_BATCH, batch, body));
+					text.dictionaryWritten = true;
+				}
+			}
+		}
+
+		final Body body = new Body();
+		final List<long[]> nodes = new ArrayList<long[]>();
+		for (final Vector vector : vectors) {
+			nodes.add(new long[] { vector.length, vector.nullCount });
+			vector.writeBuffers(body);
+		}
+		final FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+		final int batch = recordBatch(builder, rows, nodes, body);
+		recordBatchBlocks.add(writeMessage(builder, HEADER_RECORD_BATCH, batch, body));
+		for (final Vector vector : vectors) {
+			vector.reset();
+		}
+		rows = 0;
+	}
+
+	/**
+	 * Writes the last batch, the end of stream marker and the footer, then
+	 * closes the channel.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (!started || rows > 0) {
+				writeBatch();
+			}
+			write(new byte[] { -1, -1, -1, -1, 0, 0, 0, 0 });
+			final FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+			final int schema = schema(builder);
+			final int dictionaries = blocks(builder, dictionaryBlocks);
+			final int recordBatches = blocks(builder, recordBatchBlocks);
+			builder.startTable(5);
+			builder.addShortField(0, METADATA_V5);
+			builder.addOffsetField(1, schema);
+			builder.addOffsetField(2, dictionaries);
+			builder.addOffsetField(3, recordBatches);
+			final byte[] footer = builder.finish(builder.endTable());
+			write(footer);
+			final ByteBuffer trailer = ByteBuffer.allocate(4 + MAGIC.length).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+			trailer.putInt(footer.length).put(MAGIC);
+			write(trailer.array());
+		} finally {
+			out.close();
+		}
+	}
+
+	private int schema(final FlatBufferBuilder builder) {
+		final int[] fields = new int[vectors.length];
+		for (int i = 0; i < vectors.length; i++) {
+			fields[i] = vectors[i].field(builder);
+		}
+		final int fieldVector = builder.createOffsetVector(fields);
+		builder.startTable(4);
+		builder.addShortField(0, 0);
+		builder.addOffsetField(1, fieldVector);
+		return builder.endTable();
+	}
+
+	private static int recordBatch(final FlatBufferBuilder builder, final long length, final List<long[]> nodes,
+			final Body body) {
+		builder.startVector(16, nodes.size(), 8);
+		for (int i = nodes.size() - 1; i >= 0; i--) {
+			builder.prep(8, 16);
+			builder.putLong(nodes.get(i)[1]);
+			builder.putLong(nodes.get(i)[0]);
+		}
+		final int nodeVector = builder.endVector(nodes.size());
+		final List<long[]> buffers = body.buffers;
+		builder.startVector(16, buffers.size(), 8);
+		for (int i = buffers.size() - 1; i >= 0; i--) {
+			builder.prep(8, 16);
+			builder.putLong(buffers.get(i)[1]);
+			builder.putLong(buffers.get(i)[0]);
+		}
+		final int bufferVector = builder.endVector(buffers.size());
+		builder.startTable(4);
+		builder.addLongField(0, length);
+		builder.addOffsetField(1, nodeVector);
+		builder.addOffsetField(2, bufferVector);
+		return builder.endTable();
+	}
+
+	private static int blocks(final FlatBufferBuilder builder, final List<long[]> blocks) {
+		builder.startVector(24, blocks.size(), 8);
+		for (int i = blocks.size() - 1; i >= 0; i--) {
+			final long[] block = blocks.get(i);
+			builder.prep(8, 24);
+			builder.putLong(block[2]);
+			builder.putInt(0);
+			builder.putInt((int) block[1]);
+			builder.putLong(block[0]);
+		}
+		return builder.endVector(blocks.size());
+	}
+
+	/**
+	 * Writes an encapsulated message: continuation marker, metadata length,
+	 * the Message flatbuffer padded to 8 bytes, then the body.
+	 *
+	 * @return the file block of the message: offset, metadata length and
+	 *         body length
+	 */
+	private long[] writeMessage(final FlatBufferBuilder builder, final byte headerType, final int header,
+			final Body body) throws IOException {
+		builder.startTable(5);
+		builder.addShortField(0, METADATA_V5);
+		builder.addByteField(1, headerType);
+		builder.addOffsetField(2, header);
+		builder.addLongField(3, body.length());
+		final byte[] metadata = builder.finish(builder.endTable());
+		final int paddedLength = (8 + metadata.length + 7) / 8 * 8;
+		final ByteBuffer prefix = ByteBuffer.allocate(paddedLength).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+		prefix.putInt(-1).putInt(paddedLength - 8).put(metadata);
+		final long offset = position;
+		write(prefix.array());
+		write(body.bytes.toByteArray());
+		return new long[] { offset, paddedLength, body.length() };
+	}
+
+	private void write(final byte[] bytes) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		position += bytes.length;
+	}
+
+	/**
+	 * Growable little endian byte buffer.
+	 */
+	static final class Bytes {
+		private byte[] data = new byte[256];
+		private int size;
+
+		private void ensure(final int extra) {
+			if (size + extra > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+			}
+		}
+
+		void putByte(final int value) {
+			ensure(1);
+			data[size++] = (byte) value;
+		}
+
+		void putShort(final int value) {
+			putByte(value);
+			putByte(value >> 8);
+		}
+
+		void putInt(final int value) {
+			putShort(value);
+			putShort(value >> 16);
+		}
+
+		void putLong(final long value) {
+			putInt((int) value);
+			putInt((int) (value >> 32));
+		}
+
+		void put(final byte[] bytes) {
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, data, size, bytes.length);
+			size += bytes.length;
+		}
+
+		void setBit(final int index, final boolean value) {
+			final int byteIndex = index >> 3;
+			while (size <= byteIndex) {
+				putByte(0);
+			}
+			if (value) {
+				data[byteIndex] |= 1 << (index & 7);
+			}
+		}
+
+		int size() {
+			return size;
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(data, size);
+		}
+	}
+
+	/**
+	 * A message body: buffers, each padded to 8 bytes, and their locations.
+	 */
+	static final class Body {
+		final Bytes bytes = new Bytes();
+		final List<long[]> buffers = new ArrayList<long[]>();
+
+		void addBuffer(final Bytes buffer, final int length) {
+			final int offset = bytes.size();
+			final byte[] content = buffer.toByteArray();
+			bytes.put(length < content.length ? Arrays.copyOf(content, length) : content);
+			for (int i = content.length; i < length; i++) {
+				bytes.putByte(0);
+			}
+			while (bytes.size() % 8 != 0) {
+				bytes.putByte(0);
+			}
+			buffers.add(new long[] { offset, length });
+		}
+
+		long length() {
+			return bytes.size();
+		}
+	}
+
+	/**
+	 * The values of one column in the current batch, with a validity bitmap.
+	 */
+	abstract static class Vector {
+		final Column column;
+		final Bytes validity = new Bytes();
+		int length;
+		int nullCount;
+
+		Vector(final Column column) {
+			this.column = column;
+		}
+
+		void append(final Object value) {
+			if (value == null) {
+				nullCount++;
+				validity.setBit(length, false);
+				appendNull();
+			} else {
+				validity.setBit(length, true);
+				appendValue(value);
+			}
+			length++;
+		}
+
+		abstract void appendValue(Object value);
+
+		abstract void appendNull();
+
+		abstract byte typeType();
+
+		abstract int type(FlatBufferBuilder builder);
+
+		void chooseEncoding() {
+		}
+
+		boolean isDictionaryEncoded() {
+			return false;
+		}
+
+		void writeBuffers(final Body body) {
+			body.addBuffer(validity, (length + 7) / 8);
+		}
+
+		void reset() {
+			validity.clear();
+			length = 0;
+			nullCount = 0;
+		}
+
+		int field(final FlatBufferBuilder builder) {
+			final int name = builder.createString(column.getName());
+			final int type = type(builder);
+			final int dictionary = dictionary(builder);
+			final int children = builder.createOffsetVector(new int[0]);
+			builder.startTable(7);
+			builder.addOffsetField(0, name);
+			builder.addBooleanField(1, true);
+			builder.addByteField(2, typeType());
+			builder.addOffsetField(3, type);
+			if (dictionary != 0) {
+				builder.addOffsetField(4, dictionary);
+			}
+			builder.addOffsetField(5, children);
+			return builder.endTable();
+		}
+
+		int dictionary(final FlatBufferBuilder builder) {
+			return 0;
+		}
+
+		static int emptyTable(final FlatBufferBuilder builder) {
+			builder.startTable(0);
+			return builder.endTable();
+		}
+
+		static int intType(final FlatBufferBuilder builder, final int bitWidth, final boolean signed) {
+			builder.startTable(2);
+			builder.addIntField(0, bitWidth);
+			builder.addBooleanField(1, signed);
+			return builder.endTable();
+		}
+	}
+
+	/**
+	 * Integers, floating point numbers, decimals and timestamps.
+	 */
+	static final class FixedWidthVector extends Vector {
+		private final int width;
+		private final Bytes data = new Bytes();
+		private final TimeZone timeZone;
+		private final int precision;
+		private final int scale;
+
+		FixedWidthVector(final Column column, final int width) {
+			super(column);
+			this.width = width;
+			this.timeZone = column.getType() == DataType.SHORT_DATE_TIME ? column.getDatabase().getTimeZone() : null;
+			if (column.getType() == DataType.MONEY) {
+				precision = 19;
+				scale = 4;
+			} else {
+				precision = Math.max(1, (int) column.getPrecision());
+				scale = column.getScale();
+			}
+		}
+
+		@Override
+		void appendValue(final Object value) {
+			switch (column.getType()) {
+			case BYTE:
+				data.putByte(((Number) value).byteValue());
+				break;
+			case INT:
+				data.putShort(((Number) value).shortValue());
+				break;
+			case LONG:
+				data.putInt(((Number) value).intValue());
+				break;
+			case FLOAT:
+				data.putInt(Float.floatToRawIntBits(((Number) value).floatValue()));
+				break;
+			case DOUBLE:
+				data.putLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+				break;
+			case SHORT_DATE_TIME:
+				data.putLong(localMillis(value));
+				break;
+			case MONEY:
+			case NUMERIC:
+				putDecimal(value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString()));
+				break;
+			default:
+				data.putLong(((Number) value).longValue());
+			}
+		}
+
+		private long localMillis(final Object value) {
+			if (value instanceof LocalDateTime) {
+				return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+			}
+			final long millis = ((Date) value).getTime();
+			return millis + timeZone.getOffset(millis);
+		}
+
+		private void putDecimal(final BigDecimal value) {
+			final byte[] bigEndian = value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().toByteArray();
+			final byte sign = (byte) (bigEndian[0] < 0 ? -1 : 0);
+			for (int i = 0; i < 16; i++) {
+				data.putByte(i < bigEndian.length ? bigEndian[bigEndian.length - 1 - i] : sign);
+			}
+		}
+
+		@Override
+		void appendNull() {
+			for (int i = 0; i < width; i++) {
+				data.putByte(0);
+			}
+		}
+
+		@Override
+		byte typeType() {
+			switch (column.getType()) {
+			case FLOAT:
+			case DOUBLE:
+				return TYPE_FLOATING_POINT;
+			case SHORT_DATE_TIME:
+				return TYPE_TIMESTAMP;
+			case MONEY:
+			case NUMERIC:
+				return TYPE_DECIMAL;
+			default:
+				return TYPE_INT;
+			}
+		}
+
+		@Override
+		int type(final FlatBufferBuilder builder) {
+			switch (typeType()) {
+			case TYPE_FLOATING_POINT:
+				builder.startTable(1);
+				builder.addShortField(0, width == 4 ? PRECISION_SINGLE : PRECISION_DOUBLE);
+				return builder.endTable();
+			case TYPE_TIMESTAMP:
+				builder.startTable(2);
+				builder.addShortField(0, TIME_UNIT_MILLISECOND);
+				return builder.endTable();
+			case TYPE_DECIMAL:
+				builder.startTable(3);
+				builder.addIntField(0, precision);
+				builder.addIntField(1, scale);
+				builder.addIntField(2, 128);
+				return builder.endTable();
+			default:
+				// Access BYTE holds 0 to 255
+				return intType(builder, width * 8, column.getType() != DataType.BYTE);
+			}
+		}
+
+		@Override
+		void writeBuffers(final Body body) {
+			super.writeBuffers(body);
+			body.addBuffer(data, data.size());
+		}
+
+		@Override
+		void reset() {
+			super.reset();
+			data.clear();
+		}
+	}
+
+	static final class BooleanVector extends Vector {
+		private final Bytes data = new Bytes();
+
+		BooleanVector(final Column column) {
+			super(column);
+		}
+
+		@Override
+		void appendValue(final Object value) {
+			data.setBit(length, Boolean.TRUE.equals(value));
+		}
+
+		@Override
+		void appendNull() {
+			data.setBit(length, false);
+		}
+
+		@Override
+		byte typeType() {
+			return TYPE_BOOL;
+		}
+
+		@Override
+		int type(final FlatBufferBuilder builder) {
+			return emptyTable(builder);
+		}
+
+		@Override
+		void writeBuffers(final Body body) {
+			super.writeBuffers(body);
+			body.addBuffer(data, (length + 7) / 8);
+		}
+
+		@Override
+		void reset() {
+			super.reset();
+			data.clear();
+		}
+	}
+
+	/**
+	 * UTF-8 text or binary values: 32-bit offsets and the value bytes.
+	 */
+	static class VariableWidthVector extends Vector {
+		private final byte typeType;
+		private final Bytes offsets = new Bytes();
+		private final Bytes data = new Bytes();
+
+		VariableWidthVector(final Column column, final byte typeType) {
+			super(column);
+			this.typeType = typeType;
+			offsets.putInt(0);
+		}
+
+		@Override
+		void appendValue(final Object value) {
+			data.put(value instanceof byte[] ? (byte[]) value : value.toString().getBytes(StandardCharsets.UTF_8));
+			offsets.putInt(data.size());
+		}
+
+		@Override
+		void appendNull() {
+			offsets.putInt(data.size());
+		}
+
+		@Override
+		byte typeType() {
+			return typeType;
+		}
+
+		@Override
+		int type(final FlatBufferBuilder builder) {
+			return emptyTable(builder);
+		}
+
+		@Override
+		void writeBuffers(final Body body) {
+			super.writeBuffers(body);
+			body.addBuffer(offsets, offsets.size());
+			body.addBuffer(data, data.size());
+		}
+
+		@Override
+		void reset() {
+			super.reset();
+			offsets.clear();
+			offsets.putInt(0);
+			data.clear();
+		}
+	}
+
+	/**
+	 * TEXT values, written as UTF-8 or dictionary encoded. The values of a
+	 * batch are kept until it is written, so the first batch can decide.
+	 */
+	static final class TextVector extends VariableWidthVector {
+		private final List<String> values = new ArrayList<String>();
+		private boolean dictionaryEncoded;
+		private final int maxDictionaryEntries;
+		final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+		private final List<String> newEntries = new ArrayList<String>();
+		private int entries;
+		private final Bytes indices = new Bytes();
+		long dictionaryId;
+		boolean dictionaryWritten;
+
+		/**
+		 * @param maxDictionaryEntries
+		 *            the number of values looked up, past which new values
+		 *            are added for every row
+		 */
+		TextVector(final Column column, final int maxDictionaryEntries) {
+			super(column, TYPE_UTF8);
+			this.maxDictionaryEntries = maxDictionaryEntries;
+		}
+
+		@Override
+		void appendValue(final Object value) {
+			values.add(value.toString());
+		}
+
+		@Override
+		void appendNull() {
+			values.add(null);
+		}
+
+		@Override
+		void chooseEncoding() {
+			final Set<String> distinct = new HashSet<String>();
+			final int nonNull = length - nullCount;
+			for (final String value : values) {
+				if (value != null) {
+					distinct.add(value);
+				}
+			}
+			dictionaryEncoded = nonNull > 0 && distinct.size() * 2 <= nonNull;
+		}
+
+		@Override
+		boolean isDictionaryEncoded() {
+			return dictionaryEncoded;
+		}
+
+		void encodeIndices() {
+			indices.clear();
+			for (final String value : values) {
+				if (value == null) {
+					indices.putInt(0);
+				} else {
+					Integer index = dictionary.get(value);
+					if (index == null) {
+						index = entries++;
+						newEntries.add(value);
+						if (dictionary.size() < maxDictionaryEntries) {
+							dictionary.put(value, index);
+						}
+					}
+					indices.putInt(index);
+				}
+			}
+		}
+
+		boolean hasNewEntries() {
+			return !newEntries.isEmpty();
+		}
+
+		/**
+		 * Writes the entries added since the last dictionary batch as a
+		 * record batch of one UTF-8 column.
+		 *
+		 * @return the record batch
+		 */
+		int writeDictionary(final FlatBufferBuilder builder, final Body body) {
+			final Bytes validity = new Bytes();
+			final Bytes offsets = new Bytes();
+			final Bytes data = new Bytes();
+			offsets.putInt(0);
+			final int count = newEntries.size();
+			for (int i = 0; i < count; i++) {
+				validity.setBit(i, true);
+				data.put(newEntries.get(i).getBytes(StandardCharsets.UTF_8));
+				offsets.putInt(data.size());
+			}
+			newEntries.clear();
+			body.addBuffer(validity, (count + 7) / 8);
+			body.addBuffer(offsets, offsets.size());
+			body.addBuffer(data, data.size());
+			final List<long[]> nodes = new ArrayList<long[]>();
+			nodes.add(new long[] { count, 0 });
+			return recordBatch(builder, count, nodes, body);
+		}
+
+		@Override
+		int dictionary(final FlatBufferBuilder builder) {
+			if (!dictionaryEncoded) {
+				return 0;
+			}
+			final int indexType = intType(builder, 32, true);
+			builder.startTable(4);
+			builder.addLongField(0, dictionaryId);
+			builder.addOffsetField(1, indexType);
+			builder.addBooleanField(2, false);
+			return builder.endTable();
+		}
+
+		@Override
+		void writeBuffers(final Body body) {
+			if (dictionaryEncoded) {
+				body.addBuffer(validity, (length + 7) / 8);
+				body.addBuffer(indices, indices.size());
+			} else {
+				for (final String value : values) {
+					if (value == null) {
+						super.appendNull();
+					} else {
+						super.appendValue(value);
+					}
+				}
+				super.writeBuffers(body);
+			}
+		}
+
+		@Override
+		void reset() {
+			super.reset();
+			values.clear();
+			indices.clear();
+		}
+	}
+}
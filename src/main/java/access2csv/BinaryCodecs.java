@@ -0,0 +1,281 @@
+package access2csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.complex.Attachment;
+import com.healthmarketscience.jackcess.complex.ComplexDataType;
+import com.healthmarketscience.jackcess.complex.ComplexValueForeignKey;
+
+/**
+ * Codecs for binary (BINARY, OLE) and attachment columns, which would
+ * otherwise be written as {@code [B@1a2b3c}. Values are either written
+ * inline as base64 or to side files next to the output, the cell then
+ * holding the relative path and the size in bytes as {@code path;size}.
+ * <p>
+ * Jackcess reads a whole value into a byte array with its row, so a value
+ * is never copied again: base64 is encoded on the fly as the output buffer
+ * asks for characters, and side files are written straight from the array.
+ */
+final class BinaryCodecs {
+	private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.toCharArray();
+
+	private BinaryCodecs() {
+	}
+
+	static ValueCodec forColumn(final Column column, final ExportOptions options) {
+		if (ExportOptions.BINARY_FILES.equals(options.binary)) {
+			final String directory = options.csvPrefix + column.getTable().getName() + ".files/"
+					+ fileName(column.getName()) + "/";
+			return new SideFileCodec(options.outputDir, directory, options.sideFileCounter(directory));
+		}
+		return BASE64_CODEC;
+	}
+
+	static final ValueCodec BASE64_CODEC = (value, out) -> {
+		if (value instanceof byte[]) {
+			out.writeSafeText(new Base64Chars((byte[]) value));
+		} else if (isAttachments(value)) {
+			final Attachments attachments = Attachments.of(value);
+			final List<CharSequence> parts = new ArrayList<CharSequence>();
+			for (int i = 0; i < attachments.names.length; i++) {
+				if (!parts.isEmpty()) {
+					parts.add(" ");
+				}
+				parts.add(fileName(attachments.names[i]) + ':');
+				// an attachment without data is written empty, as its side file is
+				parts.add(new Base64Chars(attachments.data[i] == null ? new byte[0] : attachments.data[i]));
+			}
+			out.writeSafeText(new JoinedChars(parts));
+		} else {
+			ValueCodecs.TO_STRING.write(value, out);
+		}
+	};
+
+	static boolean isAttachments(final Object value) {
+		return value instanceof Attachments || value instanceof ComplexValueForeignKey
+				&& ((ComplexValueForeignKey) value).getComplexType() == ComplexDataType.ATTACHMENT;
+	}
+
+	/**
+	 * @return the name URL encoded, so that it is a safe file name and never
+	 *         contains separators, quotes or colons.
+	 */
+	static String fileName(final String name) {
+		try {
+			return URLEncoder.encode(name == null ? "" : name, "UTF-8");
+		} catch (final IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes each value to a numbered file in a directory per column. The
+	 * attachments of a row go to a numbered directory instead, under their
+	 * own file names.
+	 */
+	static final class SideFileCodec implements ValueCodec {
+		private final File outputDir;
+		private final String directory;
+		private final AtomicLong counter;
+		private final StringBuilder scratch = new StringBuilder(64);
+
+		SideFileCodec(final File outputDir, final String directory, final AtomicLong counter) {
+			this.outputDir = outputDir;
+			this.directory = directory;
+			this.counter = counter;
+		}
+
+		@Override
+		public void write(final Object value, final ValueSink out) throws IOException {
+			final String path;
+			long size = 0;
+			if (value instanceof byte[]) {
+				path = String.format("%s%06d.bin", directory, counter.incrementAndGet());
+				size = writeFile(new File(outputDir, path), (byte[]) value);
+			} else if (isAttachments(value)) {
+				path = String.format("%s%06d/", directory, counter.incrementAndGet());
+				final Attachments attachments = Attachments.of(value);
+				for (int i = 0; i < attachments.names.length; i++) {
+					size += writeFile(new File(outputDir, path + fileName(attachments.names[i])), attachments.data[i]);
+				}
+			} else {
+				ValueCodecs.TO_STRING.write(value, out);
+				return;
+			}
+			scratch.setLength(0);
+			out.writeText(scratch.append(path).append(';').append(size));
+		}
+
+		private static long writeFile(final File file, final byte[] data) throws IOException {
+			file.getParentFile().mkdirs();
+			final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				final ByteBuffer buffer = ByteBuffer.wrap(data == null ? new byte[0] : data);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			} finally {
+				channel.close();
+			}
+			return data == null ? 0 : data.length;
+		}
+	}
+
+	/**
+	 * Loads the attachments of a row, so that the codecs no longer read the
+	 * database when they run on another thread. Jackcess keeps the loaded
+	 * attachments and their decoded data in the value.
+	 */
+	static void loadAttachments(final Object value) throws IOException {
+		if (value instanceof ComplexValueForeignKey && isAttachments(value)) {
+			for (final Attachment attachment : ((ComplexValueForeignKey) value).getAttachments()) {
+				attachment.getFileData();
+			}
+		}
+	}
+
+	/**
+	 * The file names and data of the attachments of a row, detached from the
+	 * database, as an external sort reads them back from a run.
+	 */
+	static final class Attachments {
+		final int key;
+		final String[] names;
+		final byte[][] data;
+
+		Attachments(final int key, final String[] names, final byte[][] data) {
+			this.key = key;
+			this.names = names;
+			this.data = data;
+		}
+
+		static Attachments of(final Object value) throws IOException {
+			if (value instanceof Attachments) {
+				return (Attachments) value;
+			}
+			final ComplexValueForeignKey foreignKey = (ComplexValueForeignKey) value;
+			final List<Attachment> attachments = foreignKey.getAttachments();
+			final String[] names = new String[attachments.size()];
+			final byte[][] data = new byte[names.length][];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = attachments.get(i).getFileName();
+				data[i] = attachments.get(i).getFileData();
+			}
+			return new Attachments(foreignKey.get(), names, data);
+		}
+
+		/**
+		 * @return the foreign key, as the text of the original value.
+		 */
+		@Override
+		public String toString() {
+			return String.valueOf(key);
+		}
+	}
+
+	/**
+	 * Character sequences read one after the other without being copied
+	 * into one, for sequential access.
+	 */
+	static final class JoinedChars implements CharSequence {
+		private final CharSequence[] parts;
+		private final int length;
+		private int part;
+		private int partStart;
+
+		JoinedChars(final List<CharSequence> parts) {
+			this.parts = parts.toArray(new CharSequence[parts.size()]);
+			int length = 0;
+			for (final CharSequence p : this.parts) {
+				length += p.length();
+			}
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			if (index < partStart) {
+				part = 0;
+				partStart = 0;
+			}
+			while (index - partStart >= parts[part].length()) {
+				partStart += parts[part++].length();
+			}
+			return parts[part].charAt(index - partStart);
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			return toString().substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return new StringBuilder(this).toString();
+		}
+	}
+
+	/**
+	 * The base64 encoding of a byte array, computed character by character.
+	 */
+	static final class Base64Chars implements CharSequence {
+		private final byte[] data;
+
+		Base64Chars(final byte[] data) {
+			this.data = data;
+		}
+
+		@Override
+		public int length() {
+			return (data.length + 2) / 3 * 4;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			final int offset = index / 4 * 3;
+			final int position = index % 4;
+			if (offset + position - 1 >= data.length) {
+				return '=';
+			}
+			final int b0 = data[offset] & 0xff;
+			final int b1 = offset + 1 < data.length ? data[offset + 1] & 0xff : 0;
+			final int b2 = offset + 2 < data.length ? data[offset + 2] & 0xff : 0;
+			switch (position) {
+			case 0:
+				return BASE64[b0 >> 2];
+			case 1:
+				return BASE64[(b0 & 0x3) << 4 | b1 >> 4];
+			case 2:
+				return BASE64[(b1 & 0xf) << 2 | b2 >> 6];
+			default:
+				return BASE64[b2 & 0x3f];
+			}
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			return toString().substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return new StringBuilder(this).toString();
+		}
+	}
+}
@@ -0,0 +1,357 @@
+package access2csv;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.ColumnBuilder;
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Database;
+import com.healthmarketscience.jackcess.Database.FileFormat;
+import com.healthmarketscience.jackcess.DatabaseBuilder;
+import com.healthmarketscience.jackcess.IndexBuilder;
+import com.healthmarketscience.jackcess.Table;
+import com.healthmarketscience.jackcess.TableBuilder;
+import com.healthmarketscience.jackcess.util.ImportFilter;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.RFC4180ParserBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+
+/**
+ * Loads a CSV file into a new table in large {@link Table#addRows(List)}
+ * batches. The database is opened without auto sync, so pages are written
+ * when the buffers need it and once more at the end rather than after every
+ * batch, and the requested indexes are built after the rows are in place
+ * instead of being maintained row by row.
+ * <p>
+ * Columns and rows pass through the same {@link ImportFilter} as the
+ * ImportUtil based import, and the table is created the same way: TEXT
+ * columns named after the header, renamed by the filter. With more than one
+ * {@link ImportOptions#threads thread} the rows are parsed by
+ * {@link ParallelImport} while this thread keeps writing; otherwise they are
+ * read by a {@link MappedCsvReader} when the delimiter and the platform
+ * charset allow it, as FileReader based imports use the platform charset.
+ * Rows can also be appended to an existing table, see
+ * {@link #appendFile}.
+ */
+class BulkImporter {
+
+	private BulkImporter() {
+	}
+
+	/**
+	 * Opens or creates the database without auto sync.
+	 */
+	static Database open(final File dbFile) throws IOException {
+		final DatabaseBuilder builder = new DatabaseBuilder(dbFile).setAutoSync(false);
+		return dbFile.exists() ? builder.open() : builder.setFileFormat(FileFormat.V2016).create();
+	}
+
+	/**
+	 * @param records
+	 *            the records of the file read ahead, or null to read them here
+	 * @return the name of the new table.
+	 */
+	static String importFile(final File inputFile, final Database db, final String tableName, final char delimiter,
+			final ImportFilter filter, final ImportOptions options, final Records records) throws IOException {
+		final long start = System.nanoTime();
+		final Records source = records != null ? records : Records.open(inputFile, delimiter, options.threads == 1);
+		try {
+			final String[] header = readHeader(source, inputFile);
+			final List<ColumnBuilder> columns = new ArrayList<ColumnBuilder>();
+			for (final String name : header) {
+				columns.add(new ColumnBuilder(name, DataType.TEXT).escapeName().setMaxLength());
+			}
+			final Table table = new TableBuilder(uniqueTableName(db, tableName))
+					.addColumns(filter.filterColumns(columns, null)).toTable(db);
+			final List<? extends Column> tableColumns = table.getColumns();
+			final boolean[] textual = new boolean[tableColumns.size()];
+			for (int i = 0; i < textual.length; i++) {
+				textual[i] = tableColumns.get(i).getType().isTextual();
+			}
+
+			final long rows = load(source, delimiter, textual, filter, new RowBatch(table, options.batchSize, null),
+					options);
+
+			if (options.indexColumns != null) {
+				for (final String column : options.indexColumns) {
+					System.out.println(String.format("Indexing '%s' on %s", table.getName(), column));
+					new IndexBuilder(column).addColumns(table.getColumn(column).getName()).addToTable(table);
+				}
+			}
+			db.flush();
+
+			final TableExportStats stats = new TableExportStats(table.getName(), rows, System.nanoTime() - start);
+			System.out.println(String.format("%d rows imported into '%s' (%.0f rows/sec)", rows, table.getName(),
+					stats.rowsPerSecond()));
+			return table.getName();
+		} catch (final SQLException e) {
+			throw new IOException("Could not import " + inputFile, e);
+		} finally {
+			source.close();
+		}
+	}
+
+	/**
+	 * Appends the rows of a CSV file to an existing table. Header names are
+	 * matched to the columns of the table ignoring case; columns missing from
+	 * the file are left null and columns missing from the table are skipped.
+	 * Values are checked and converted to the column types by a
+	 * {@link SchemaValidator} compiled from the table, so invalid rows are
+	 * rejected instead of failing a batch.
+	 *
+	 * @param records
+	 *            the records of the file read ahead, or null to read them here
+	 * @return the rows appended.
+	 */
+	static long appendFile(final File inputFile, final Database db, final String tableName, final char delimiter,
+			final ValidatingImportFilter filter, final ImportOptions options, final Records records)
+			throws IOException {
+		final long start = System.nanoTime();
+		final Table table = db.getTable(tableName);
+		if (table == null) {
+			throw new IOException(String.format("No table '%s' to append to in %s", tableName, db.getFile()));
+		}
+		final Records source = records != null ? records : Records.open(inputFile, delimiter, options.threads == 1);
+		try {
+			final String[] header = readHeader(source, inputFile);
+			final List<? extends Column> columns = table.getColumns();
+			final int[] columnMap = new int[columns.size()];
+			final boolean[] textual = new boolean[header.length];
+			final boolean[] mapped = new boolean[header.length];
+			Arrays.fill(textual, true);
+			final List<ImportSchemaFile> schema = new ArrayList<ImportSchemaFile>();
+			for (int i = 0; i < columnMap.length; i++) {
+				final Column column = columns.get(i);
+				columnMap[i] = -1;
+				for (int j = 0; j < header.length && columnMap[i] < 0; j++) {
+					if (!mapped[j] && header[j].equalsIgnoreCase(column.getName())) {
+						columnMap[i] = j;
+						mapped[j] = true;
+						textual[j] = column.getType().isTextual();
+					}
+				}
+				if (columnMap[i] >= 0 && SchemaValidator.isChecked(column.getType())) {
+					final ImportSchemaFile entry = new ImportSchemaFile();
+					entry.setcolumn(header[columnMap[i]]);
+					entry.setdatatype(column.getType().name());
+					if (textual[columnMap[i]]) {
+						entry.setlength(String.valueOf(column.getLengthInUnits()));
+					}
+					schema.add(entry);
+				}
+			}
+			for (int j = 0; j < header.length; j++) {
+				if (!mapped[j]) {
+					System.out.println(String.format("Ignoring (%s) -> no such column in '%s'", header[j],
+							table.getName()));
+				}
+			}
+			filter.validator = SchemaValidator.compile(schema, Arrays.asList(header));
+
+			final long rows = load(source, delimiter, textual, filter,
+					new RowBatch(table, options.batchSize, columnMap), options);
+			db.flush();
+
+			final TableExportStats stats = new TableExportStats(table.getName(), rows, System.nanoTime() - start);
+			System.out.println(String.format("%d rows appended to '%s' (%.0f rows/sec)", rows, table.getName(),
+					stats.rowsPerSecond()));
+			return rows;
+		} finally {
+			source.close();
+		}
+	}
+
+	private static long load(final Records records, final char delimiter, final boolean[] textual,
+			final ImportFilter filter, final RowBatch batch, final ImportOptions options) throws IOException {
+		if (options.threads > 1 && records.remaining() != null) {
+			ParallelImport.load(records.remaining(), delimiter, textual, filter, batch, options.threads,
+					ParallelImport.CHUNK_SIZE);
+		} else {
+			try {
+				String[] line;
+				while ((line = records.readNext()) != null) {
+					final Object[] filtered = filter.filterRow(toRow(line, textual));
+					if (filtered != null) {
+						batch.add(filtered);
+					}
+				}
+			} catch (final SQLException e) {
+				throw new IOException(e);
+			}
+		}
+		return batch.finish();
+	}
+
+	/**
+	 * @param textual
+	 *            whether each column is textual; empty values of the others
+	 *            become null
+	 * @return the values of a parsed line, padded or cut to the columns.
+	 */
+	static Object[] toRow(final String[] line, final boolean[] textual) {
+		final Object[] row = Arrays.copyOf(line, textual.length, Object[].class);
+		for (int i = 0; i < row.length; i++) {
+			if (!textual[i] && "".equals(row[i])) {
+				row[i] = null;
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Adds rows to a table in batches.
+	 */
+	static final class RowBatch {
+		private final Table table;
+		private final int size;
+		private final int[] columnMap;
+		private final List<Object[]> rows;
+		private long added;
+
+		/**
+		 * @param columnMap
+		 *            the position in the added rows of each column of the
+		 *            table, -1 for none, or null when the rows are in table
+		 *            order
+		 */
+		RowBatch(final Table table, final int size, final int[] columnMap) {
+			this.table = table;
+			this.size = size;
+			this.columnMap = columnMap;
+			this.rows = new ArrayList<Object[]>(size);
+		}
+
+		void add(final Object[] row) throws IOException {
+			if (columnMap == null) {
+				rows.add(row);
+			} else {
+				final Object[] ordered = new Object[columnMap.length];
+				for (int i = 0; i < ordered.length; i++) {
+					ordered[i] = columnMap[i] < 0 ? null : row[columnMap[i]];
+				}
+				rows.add(ordered);
+			}
+			if (rows.size() == size) {
+				flush();
+			}
+		}
+
+		/**
+		 * Adds the last rows.
+		 *
+		 * @return the rows added in total.
+		 */
+		long finish() throws IOException {
+			if (!rows.isEmpty()) {
+				flush();
+			}
+			return added;
+		}
+
+		private void flush() throws IOException {
+			table.addRows(rows);
+			added += rows.size();
+			rows.clear();
+		}
+	}
+
+	static String[] readHeader(final Records records, final File inputFile) throws IOException {
+		final String[] header = records.readNext();
+		if (header == null) {
+			throw new IOException("No header line in " + inputFile);
+		}
+		return header;
+	}
+
+	/**
+	 * The records of a CSV file.
+	 */
+	interface Records extends Closeable {
+		/**
+		 * @return the fields of the next record, or null at the end of the
+		 *         file.
+		 */
+		String[] readNext() throws IOException;
+
+		/**
+		 * @return the text after the records read so far, or null when it is
+		 *         not read from a {@link Reader}.
+		 */
+		Reader remaining();
+
+		/**
+		 * @return the records of the file, read by a {@link MappedCsvReader}
+		 *         when it may be and the delimiter and the platform charset
+		 *         allow it, and by opencsv otherwise.
+		 */
+		static Records open(final File file, final char delimiter, final boolean map) throws IOException {
+			final Charset charset = Charset.defaultCharset();
+			if (map && MappedCsvReader.supports(delimiter, charset)) {
+				final MappedCsvReader mapped = new MappedCsvReader(file, delimiter, charset);
+				return new Records() {
+					@Override
+					public String[] readNext() throws IOException {
+						return mapped.readNext();
+					}
+
+					@Override
+					public Reader remaining() {
+						return null;
+					}
+
+					@Override
+					public void close() throws IOException {
+						mapped.close();
+					}
+				};
+			}
+			final BufferedReader in = new BufferedReader(new FileReader(file), 1 << 16);
+			final CSVReader reader = new CSVReaderBuilder(in)
+					.withCSVParser(new RFC4180ParserBuilder().withSeparator(delimiter).build()).build();
+			return new Records() {
+				@Override
+				public String[] readNext() throws IOException {
+					try {
+						return reader.readNext();
+					} catch (final CsvValidationException e) {
+						throw new IOException("Could not read " + file, e);
+					}
+				}
+
+				@Override
+				public Reader remaining() {
+					return in;
+				}
+
+				@Override
+				public void close() throws IOException {
+					reader.close();
+				}
+			};
+		}
+	}
+
+	/**
+	 * @return the name, with a number appended when a table of that name
+	 *         exists, as ImportUtil does.
+	 */
+	static String uniqueTableName(final Database db, final String name) throws IOException {
+		final String escaped = TableBuilder.escapeIdentifier(name);
+		String tableName = escaped;
+		for (int counter = 1; db.getTable(tableName) != null; counter++) {
+			tableName = escaped + counter;
+		}
+		return tableName;
+	}
+}
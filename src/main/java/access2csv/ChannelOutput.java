@@ -0,0 +1,235 @@
+package access2csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes characters straight into a large reusable {@link ByteBuffer} which
+ * is written to a channel whenever it fills up.
+ * <p>
+ * ASCII characters are copied byte for byte when the charset allows it and
+ * UTF-8 is encoded inline, so the common case needs neither a
+ * {@link CharsetEncoder} call nor intermediate strings.
+ */
+class ChannelOutput implements Closeable {
+
+	static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final CharsetEncoder encoder;
+	private final boolean asciiCompatible;
+	private final boolean utf8;
+	private final char[] digits = new char[20];
+	private long bytesWritten;
+
+	ChannelOutput(final WritableByteChannel channel, final Charset charset) {
+		this(channel, charset, DEFAULT_BUFFER_SIZE);
+	}
+
+	ChannelOutput(final WritableByteChannel channel, final Charset charset, final int bufferSize) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.asciiCompatible = isAsciiCompatible(charset);
+		this.utf8 = charset.equals(StandardCharsets.UTF_8);
+	}
+
+	static boolean isAsciiCompatible(final Charset charset) {
+		if (!charset.canEncode()) {
+			return false;
+		}
+		final char[] ascii = new char[128];
+		final byte[] expected = new byte[128];
+		for (int i = 0; i < ascii.length; i++) {
+			ascii[i] = (char) i;
+			expected[i] = (byte) i;
+		}
+		try {
+			final ByteBuffer encoded = charset.newEncoder().encode(CharBuffer.wrap(ascii));
+			final byte[] actual = new byte[encoded.remaining()];
+			encoded.get(actual);
+			return Arrays.equals(expected, actual);
+		} catch (final CharacterCodingException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return the number of bytes handed to the channel so far, plus those
+	 *         still buffered.
+	 */
+	long getBytesWritten() {
+		return bytesWritten + buffer.position();
+	}
+
+	final void putByte(final byte b) throws IOException {
+		if (!buffer.hasRemaining()) {
+			drain();
+		}
+		buffer.put(b);
+	}
+
+	/**
+	 * Writes bytes already encoded in the charset of this output.
+	 */
+	final void putBytes(final byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			if (!buffer.hasRemaining()) {
+				drain();
+			}
+			final int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	/**
+	 * Writes a single ASCII character such as a separator or quote.
+	 */
+	final void putAscii(final char c) throws IOException {
+		if (asciiCompatible) {
+			putByte((byte) c);
+		} else {
+			encode(CharBuffer.wrap(new char[] { c }));
+		}
+	}
+
+	final void putChars(final CharSequence value) throws IOException {
+		putChars(value, 0, value.length());
+	}
+
+	final void putChars(final CharSequence value, final int from, final int to) throws IOException {
+		if (!asciiCompatible) {
+			encode(CharBuffer.wrap(value, from, to));
+			return;
+		}
+		int i = from;
+		while (i < to) {
+			final char c = value.charAt(i);
+			if (c < 0x80) {
+				putByte((byte) c);
+				i++;
+			} else if (utf8) {
+				i = putUtf8(value, i, to);
+			} else {
+				int end = i + 1;
+				while (end < to && value.charAt(end) >= 0x80) {
+					end++;
+				}
+				encode(CharBuffer.wrap(value, i, end));
+				i = end;
+			}
+		}
+	}
+
+	/**
+	 * Writes the decimal representation of a long without allocating.
+	 */
+	final void putLong(final long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			putChars(Long.toString(value));
+			return;
+		}
+		long v = value;
+		if (v < 0) {
+			putAscii('-');
+			v = -v;
+		}
+		int pos = digits.length;
+		do {
+			digits[--pos] = (char) ('0' + (v % 10));
+			v /= 10;
+		} while (v != 0);
+		while (pos < digits.length) {
+			putAscii(digits[pos++]);
+		}
+	}
+
+	private int putUtf8(final CharSequence value, final int i, final int to) throws IOException {
+		final char c = value.charAt(i);
+		if (c < 0x800) {
+			putByte((byte) (0xC0 | (c >> 6)));
+			putByte((byte) (0x80 | (c & 0x3F)));
+			return i + 1;
+		}
+		if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(value.charAt(i + 1))) {
+			final int cp = Character.toCodePoint(c, value.charAt(i + 1));
+			putByte((byte) (0xF0 | (cp >> 18)));
+			putByte((byte) (0x80 | ((cp >> 12) & 0x3F)));
+			putByte((byte) (0x80 | ((cp >> 6) & 0x3F)));
+			putByte((byte) (0x80 | (cp & 0x3F)));
+			return i + 2;
+		}
+		if (Character.isSurrogate(c)) {
+			putByte((byte) '?');
+			return i + 1;
+		}
+		putByte((byte) (0xE0 | (c >> 12)));
+		putByte((byte) (0x80 | ((c >> 6) & 0x3F)));
+		putByte((byte) (0x80 | (c & 0x3F)));
+		return i + 1;
+	}
+
+	/**
+	 * Encodes through the {@link CharsetEncoder}. Stateless ASCII compatible
+	 * charsets are reset after every run, other charsets (for example UTF-16
+	 * with its byte order mark) keep their state until {@link #close()}.
+	 */
+	private void encode(final CharBuffer chars) throws IOException {
+		encode(chars, asciiCompatible);
+		if (asciiCompatible) {
+			while (encoder.flush(buffer).isOverflow()) {
+				drain();
+			}
+			encoder.reset();
+		}
+	}
+
+	private void encode(final CharBuffer chars, final boolean endOfInput) throws IOException {
+		while (encoder.encode(chars, buffer, endOfInput).isOverflow()) {
+			drain();
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the channel.
+	 */
+	final void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			bytesWritten += channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	void flush() throws IOException {
+		drain();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (!asciiCompatible) {
+				encode(CharBuffer.allocate(0), true);
+				while (encoder.flush(buffer).isOverflow()) {
+					drain();
+				}
+			}
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
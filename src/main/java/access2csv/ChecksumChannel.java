@@ -0,0 +1,47 @@
+package access2csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Counts the bytes passing through to a channel and computes their CRC32.
+ */
+class ChecksumChannel implements WritableByteChannel {
+	private final WritableByteChannel out;
+	private final CRC32 crc = new CRC32();
+	private long bytes;
+
+	ChecksumChannel(final WritableByteChannel out) {
+		this.out = out;
+	}
+
+	@Override
+	public int write(final ByteBuffer src) throws IOException {
+		final ByteBuffer written = src.duplicate();
+		final int count = out.write(src);
+		written.limit(written.position() + count);
+		crc.update(written);
+		bytes += count;
+		return count;
+	}
+
+	long getBytes() {
+		return bytes;
+	}
+
+	long getCrc32() {
+		return crc.getValue();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return out.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
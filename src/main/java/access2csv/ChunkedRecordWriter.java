@@ -0,0 +1,155 @@
+package access2csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.healthmarketscience.jackcess.Column;
+
+/**
+ * Splits the rows of a table over numbered files, starting a new file once
+ * the current one holds {@link ExportOptions#maxRowsPerFile} rows or
+ * {@link ExportOptions#maxBytesPerFile} bytes, and repeating the header in
+ * every file. A file may exceed the byte limit by its last row.
+ * <p>
+ * After each file is closed, the manifest of the table is rewritten with
+ * the finished files, their row counts, sizes and CRC32 checksums, so that
+ * loaders can pick up files while the export continues. The manifest says
+ * {@code "complete": true} once the last file is listed.
+ */
+class ChunkedRecordWriter implements RecordWriter {
+
+	/**
+	 * A finished file.
+	 */
+	static final class Part {
+		final File file;
+		final long rows;
+		final long bytes;
+		final long crc32;
+
+		Part(final File file, final long rows, final long bytes, final long crc32) {
+			this.file = file;
+			this.rows = rows;
+			this.bytes = bytes;
+			this.crc32 = crc32;
+		}
+	}
+
+	private final String tableName;
+	private final Column[] columns;
+	private final ExportOptions options;
+	private final List<Part> parts = new ArrayList<Part>();
+	private Column[] header;
+	private File file;
+	private ChecksumChannel checksum;
+	private RecordWriter current;
+	private long rows;
+	private long bytesWritten;
+
+	ChunkedRecordWriter(final String tableName, final Column[] columns, final ExportOptions options) {
+		this.tableName = tableName;
+		this.columns = columns;
+		this.options = options;
+	}
+
+	@Override
+	public void writeHeader(final Column[] columns) throws IOException {
+		header = columns;
+		if (current == null) {
+			open();
+		} else {
+			current.writeHeader(columns);
+		}
+	}
+
+	@Override
+	public void writeRecord(final Object[] values) throws IOException {
+		if (current == null) {
+			open();
+		} else if (isFull()) {
+			finishPart();
+			open();
+		}
+		current.writeRecord(values);
+		rows++;
+	}
+
+	private boolean isFull() {
+		return (options.maxRowsPerFile > 0 && rows >= options.maxRowsPerFile)
+				|| (options.maxBytesPerFile > 0 && current.getBytesWritten() >= options.maxBytesPerFile);
+	}
+
+	private void open() throws IOException {
+		file = options.chunkFile(tableName, parts.size());
+		checksum = new ChecksumChannel(Driver.openOutputChannel(file));
+		current = Driver.newRecordWriter(columns, Driver.compress(checksum, options), options);
+		rows = 0;
+		if (header != null) {
+			current.writeHeader(header);
+		}
+	}
+
+	private void finishPart() throws IOException {
+		bytesWritten += current.getBytesWritten();
+		current.close();
+		current = null;
+		parts.add(new Part(file, rows, checksum.getBytes(), checksum.getCrc32()));
+		writeManifest(false);
+	}
+
+	List<Part> getParts() {
+		return parts;
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten + (current == null ? 0 : current.getBytesWritten());
+	}
+
+	/**
+	 * Closes the last file, creating an empty one for a table without rows,
+	 * and completes the manifest.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (current == null && parts.isEmpty()) {
+			open();
+		}
+		if (current != null) {
+			finishPart();
+		}
+		writeManifest(true);
+	}
+
+	private void writeManifest(final boolean complete) throws IOException {
+		long totalRows = 0;
+		for (final Part part : parts) {
+			totalRows += part.rows;
+		}
+		final StringBuilder json = new StringBuilder();
+		json.append("{\n  \"table\": ");
+		Json.appendString(json, tableName);
+		json.append(",\n  \"complete\": ").append(complete);
+		json.append(",\n  \"rows\": ").append(totalRows);
+		json.append(",\n  \"parts\": [");
+		for (int i = 0; i < parts.size(); i++) {
+			final Part part = parts.get(i);
+			json.append(i == 0 ? "\n" : ",\n").append("    {\"file\": ");
+			Json.appendString(json, part.file.getName());
+			json.append(", \"rows\": ").append(part.rows);
+			json.append(", \"bytes\": ").append(part.bytes);
+			json.append(", \"crc32\": \"").append(String.format("%08x", part.crc32)).append("\"}");
+		}
+		json.append(parts.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+
+		final File manifest = options.manifestFile(tableName);
+		final File temp = new File(manifest.getPath() + ".tmp");
+		Files.write(temp.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+		Files.move(temp.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+}
@@ -0,0 +1,149 @@
+package access2csv;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * CSV writer on top of {@link ChannelOutput}, producing the same output as
+ * opencsv's {@code CSVWriter.writeNext(String[], boolean)} with the default
+ * separator, quote, escape and line end.
+ */
+class CsvChannelWriter extends ChannelOutput implements ValueSink {
+
+	static final char SEPARATOR = ',';
+	static final char QUOTE = '"';
+	static final char LINE_END = '\n';
+
+	private final boolean applyQuotesToAll;
+	private String nullText = "";
+	private String trueText = Boolean.TRUE.toString();
+	private String falseText = Boolean.FALSE.toString();
+	private boolean firstField = true;
+
+	CsvChannelWriter(final WritableByteChannel channel, final ExportOptions options) {
+		this(channel, options.charset, options.applyQuotesToAll);
+		this.nullText = options.nullText;
+		this.trueText = options.trueText;
+		this.falseText = options.falseText;
+	}
+
+	CsvChannelWriter(final WritableByteChannel channel, final Charset charset, final boolean applyQuotesToAll) {
+		this(channel, charset, applyQuotesToAll, DEFAULT_BUFFER_SIZE);
+	}
+
+	CsvChannelWriter(final WritableByteChannel channel, final Charset charset, final boolean applyQuotesToAll,
+			final int bufferSize) {
+		super(channel, charset, bufferSize);
+		this.applyQuotesToAll = applyQuotesToAll;
+	}
+
+	void writeNext(final String[] values) throws IOException {
+		for (final String value : values) {
+			writeField(value);
+		}
+		endRecord();
+	}
+
+	/**
+	 * Writes one field, quoting it when quote-all is set or when it contains a
+	 * quote, separator or line break. Null fields are left empty.
+	 */
+	void writeField(final CharSequence value) throws IOException {
+		separate();
+		if (value == null) {
+			return;
+		}
+		final boolean special = containsSpecialCharacters(value);
+		if (applyQuotesToAll || special) {
+			putAscii(QUOTE);
+		}
+		if (special) {
+			putEscaped(value);
+		} else {
+			putChars(value);
+		}
+		if (applyQuotesToAll || special) {
+			putAscii(QUOTE);
+		}
+	}
+
+	@Override
+	public void writeNull() throws IOException {
+		writeField(nullText);
+	}
+
+	@Override
+	public void writeText(final CharSequence value) throws IOException {
+		writeField(value);
+	}
+
+	@Override
+	public void writeSafeText(final CharSequence value) throws IOException {
+		separate();
+		if (applyQuotesToAll) {
+			putAscii(QUOTE);
+			putChars(value);
+			putAscii(QUOTE);
+		} else {
+			putChars(value);
+		}
+	}
+
+	@Override
+	public void writeLong(final long value) throws IOException {
+		separate();
+		if (applyQuotesToAll) {
+			putAscii(QUOTE);
+			putLong(value);
+			putAscii(QUOTE);
+		} else {
+			putLong(value);
+		}
+	}
+
+	@Override
+	public void writeNumber(final CharSequence value) throws IOException {
+		writeSafeText(value);
+	}
+
+	@Override
+	public void writeBoolean(final boolean value) throws IOException {
+		writeField(value ? trueText : falseText);
+	}
+
+	void endRecord() throws IOException {
+		putAscii(LINE_END);
+		firstField = true;
+	}
+
+	private void separate() throws IOException {
+		if (firstField) {
+			firstField = false;
+		} else {
+			putAscii(SEPARATOR);
+		}
+	}
+
+	static boolean containsSpecialCharacters(final CharSequence value) {
+		for (int i = 0, n = value.length(); i < n; i++) {
+			final char c = value.charAt(i);
+			if (c == QUOTE || c == SEPARATOR || c == '\n' || c == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void putEscaped(final CharSequence value) throws IOException {
+		int start = 0;
+		for (int i = 0, n = value.length(); i < n; i++) {
+			if (value.charAt(i) == QUOTE) {
+				putChars(value, start, i + 1);
+				putAscii(QUOTE);
+				start = i + 1;
+			}
+		}
+		putChars(value, start, value.length());
+	}
+}
@@ -0,0 +1,51 @@
+package access2csv;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import com.healthmarketscience.jackcess.Column;
+
+/**
+ * Writes rows as CSV, rendering each value with the codec compiled for its
+ * column.
+ */
+class CsvRecordWriter implements RecordWriter {
+	private final CsvChannelWriter writer;
+	private final ValueCodec[] codecs;
+
+	CsvRecordWriter(final Column[] columns, final WritableByteChannel out, final ExportOptions options) {
+		this.writer = new CsvChannelWriter(out, options);
+		this.codecs = ValueCodecs.forColumns(Arrays.asList(columns), options);
+	}
+
+	@Override
+	public void writeHeader(final Column[] columns) throws IOException {
+		for (final Column column : columns) {
+			writer.writeText(column.getName());
+		}
+		writer.endRecord();
+	}
+
+	@Override
+	public void writeRecord(final Object[] values) throws IOException {
+		for (int i = 0; i < codecs.length; i++) {
+			if (values[i] == null) {
+				writer.writeNull();
+			} else {
+				codecs[i].write(values[i], writer);
+			}
+		}
+		writer.endRecord();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return writer.getBytesWritten();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
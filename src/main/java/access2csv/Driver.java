@@ -2,22 +2,44 @@ package access2csv;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
 //import java.io.PrintWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
 //import java.lang.reflect.Field;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 //import java.sql.Types;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 //import java.util.HashMap;
 import java.util.List;
 //import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -64,8 +86,32 @@ public class Driver {
 	}	
 	
 	static void importCSV(final File inputFile, final File dbFile, String delimiter,final DataType defaultType, final List<ImportSchemaFile> colschema) throws IOException {
-		final Database db = dbFile.exists() ? DatabaseBuilder.open(dbFile)
-				: DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		importCSV(inputFile, dbFile, delimiter, defaultType, colschema, new ImportOptions());
+	}
+
+	static void importCSV(final File inputFile, final File dbFile, String delimiter,final DataType defaultType, final List<ImportSchemaFile> colschema, final ImportOptions options) throws IOException {
+		final Database db = options.bulk || options.appendTo != null ? BulkImporter.open(dbFile)
+				: dbFile.exists() ? DatabaseBuilder.open(dbFile) : DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			importCSV(inputFile, db, delimiter, defaultType, colschema, options, null);
+		} finally {
+			db.close();
+		}
+	}
+
+	/**
+	 * Imports into an open database.
+	 *
+	 * @param records
+	 *            the records of the file read ahead for a bulk import, or null
+	 *            to read the file
+	 */
+	static void importCSV(final File inputFile, final Database db, String delimiter, final DataType defaultType,
+			final List<ImportSchemaFile> colschema, final ImportOptions options, final BulkImporter.Records records)
+			throws IOException {
+		final RejectSink rejects = new RejectSink(
+				options.rejectsFile != null ? options.rejectsFile : new File(inputFile.getPath() + ".rejects.csv"),
+				options);
 
 		try {
 			final Boolean hascolSchema = colschema ==null ? false: !colschema.isEmpty();
@@ -79,105 +125,9 @@ public class Driver {
 			.collect(Collectors.toList())
 			:null;
 
-			ImportFilter filter = new SimpleImportFilter() {
-				List<RowDataImportError> rowerrors = new ArrayList<RowDataImportError>();
-				int rownum = 0;
+			ValidatingImportFilter filter = new ValidatingImportFilter(rejects) {
 				ArrayList<String> _columnsindata = new ArrayList<String>();//set from filtercolumns 
 				
-				@Override
-				public Object[] filterRow(Object[] row) throws SQLException, IOException
-				{
-					if(!hascolSchema) 
-						return row;
-					
-						rownum +=1;
-					//System.out.println(Arrays.toString(row));
-					if(row != null && _colschema != null)
-					{
-						//if(_colschema.size() >= row.length)
-						//{
-							RowDataImportError rderr = validatedatarow(row);
-							if(rderr.hasErrors())
-							{
-								rderr.RowNum = rownum;
-								rderr.RowsAsCsv = Arrays.toString(row);
-								rderr.printErrorsToConsole();
-								rowerrors.add(rderr);
-							}
-						//}
-					}
-					return row;
-				}
-
-				private Pattern pattern = Pattern.compile("-?\\d+(\\.\\d+)?");
-				public boolean isNumeric(String strNum) {
-					if (strNum == null) {
-						return false; 
-					}
-					return pattern.matcher(strNum).matches();
-				}
-
-				private RowDataImportError validatedatarow(Object[] row)
-				{
-					RowDataImportError err = new RowDataImportError();
-					for (ImportSchemaFile importSchemaFile : _colschema) {
-
-						if(importSchemaFile.isHeader()) //ignore if its an header column inside schema file
-							continue;
-					
-						String columnname = importSchemaFile.getcolumn();
-						Optional<String> colindataname = _columnsindata.stream().filter(o -> o.equalsIgnoreCase(columnname)).findFirst();
-						
-						if(!colindataname.isPresent())
-						{
-							System.out.println("Ignoring (" + columnname + ") -> cannot find in -> " + Arrays.toString(_columnsindata.toArray()));
-							continue;
-						}
-						
-						//resolve data from column to be processed inside schema
-						int i = _columnsindata.indexOf(colindataname.get());
-						Object v = row.length >= i?row[i]:null;
-						if(v == null)
-							continue;
-						else
-						{
-							DataType dt = importSchemaFile.toAccessDataType();
-							
-							if(dt == DataType.NUMERIC)
-							{
-								Boolean isnumeric = isNumeric(v.toString());
-								if(!isnumeric)
-								{
-									err.ColumnNum = i;
-									err.ColumnName = importSchemaFile.getcolumn();
-									err.ColumnValue = v.toString();
-									err.DataTypeDefined = importSchemaFile.toAccessDataType();
-									err.ErrorMessage = "Data Type (" + dt + ") Mismatch -> value -> " + v.toString();
-									rowerrors.add(err);
-								}
-							}
-
-							if(dt == DataType.TEXT || dt.isTextual())
-							{
-								Boolean isdatalenvalid = dt.isValidSize(v.toString().length());
-								if(!isdatalenvalid)
-								{
-									//System.out.println("ROW (" + i + ") ERROR -> " + Arrays.toString(row));
-									//System.out.println("column(" + importSchemaFile.getcolumn() + ") -> Data Length (" + v.toString().length() + " > expected size for " + dt + " ) -> Data (" + v.toString() + ")" );
-									err.ColumnNum = i;
-									err.ColumnName = importSchemaFile.getcolumn();
-									err.ColumnValue = v.toString();
-									err.DataTypeDefined = importSchemaFile.toAccessDataType();
-									err.ErrorMessage = "Data Length (" + v.toString().length() + " > expected size for " + dt + " ) -> Data (" + v.toString() + ")";
-								}
-							}
-
-						}
-					}
-					return err;
-				}
-
-
 				@Override
 				public List<ColumnBuilder> filterColumns(final List<ColumnBuilder> destColumns,	final ResultSetMetaData srcColumns) throws SQLException, IOException {
 					System.out.println("Converting all Text Fields to Memo fields for maximum length!");
@@ -214,7 +164,15 @@ public class Driver {
 									DataType dt = colsch.toAccessDataType();//resolveDataType(colsch, defaultType);
 									System.out.println("(" + (usetname?nametouse:colname) + ") -> " + "Access: " + dt);
 									column.setType(dt);
-									column.setMaxLength();
+									if (dt.isVariableLength()) {
+										column.setMaxLength();
+									} else {
+										column.setLength(dt.getFixedSize());
+									}
+									final int length = colsch.toLength();
+									if (dt.isTextual() && length > 0 && length < dt.toUnitSize(dt.getMaxSize())) {
+										column.setLengthInUnits(length);
+									}
 								} catch (Exception e) {
 									column.setType(defaultType);
 									column.setMaxLength();
@@ -226,20 +184,35 @@ public class Driver {
 						_columnsindata.add(usetname?nametouse:colname); 
 					}
 					System.out.println("Header Columns: " + StringUtils.stripEnd(cols.toString(),","));
+					if(hascolSchema)
+						validator = SchemaValidator.compile(_colschema, _columnsindata);
 					
 					return destColumns;
 				}
 			};			
 			
-			new ImportUtil.Builder(db, getFileNameWithoutExtension(inputFile))
-			.setDelimiter(delimiter)
-			.setFilter(filter)
-			.setHeader(true)
-			.importFile(inputFile);			
+			if (options.appendTo != null) {
+				if (delimiter.length() != 1) {
+					throw new IllegalArgumentException("--append-to needs a single character delimiter");
+				}
+				if (hascolSchema) {
+					System.out.println("Appending to '" + options.appendTo + "': using its column types, not the schema file");
+				}
+				BulkImporter.appendFile(inputFile, db, options.appendTo, delimiter.charAt(0), filter, options, records);
+			} else if (options.bulk && delimiter.length() == 1) {
+				BulkImporter.importFile(inputFile, db, getFileNameWithoutExtension(inputFile), delimiter.charAt(0),
+						filter, options, records);
+			} else {
+				new ImportUtil.Builder(db, getFileNameWithoutExtension(inputFile))
+				.setDelimiter(delimiter)
+				.setFilter(filter)
+				.setHeader(true)
+				.importFile(inputFile);
+			}
 			
 		} finally {
-			db.close();
-		}		
+			rejects.close();
+		}
 	}
 	
 	static void importCSV(final File inputFile, final File dbFile, String delimiter,final DataType defaultType) throws IOException {
@@ -290,7 +263,12 @@ public class Driver {
 
 	static int export(final Database db, final String tableName, final Writer csv, final boolean withHeader,
 			final boolean applyQuotesToAll, final String nullText) throws IOException {
-		final Table table = db.getTable(tableName);
+		return export(CursorBuilder.createCursor(db.getTable(tableName)), csv, withHeader, applyQuotesToAll, nullText);
+	}
+
+	static int export(final Cursor cursor, final Writer csv, final boolean withHeader,
+			final boolean applyQuotesToAll, final String nullText) throws IOException {
+		final Table table = cursor.getTable();
 		final String[] buffer = new String[table.getColumnCount()];
 		final CSVWriter writer = new CSVWriter(new BufferedWriter(csv));
 		// upgraded csvwrited to latest version ... new CSVWriter(new
@@ -307,7 +285,7 @@ public class Driver {
 				writer.writeNext(buffer, applyQuotesToAll);
 			}
 
-			for (final Row row : table) {
+			for (final Row row : cursor) {
 				int i = 0;
 				for (final Object object : row.values()) {
 					buffer[i++] = object == null ? nullText : object.toString();
@@ -321,17 +299,387 @@ public class Driver {
 		return rows;
 	}
 
+	/**
+	 * Exports the rows of a cursor as CSV into a channel. Rows are read
+	 * positionally into a reused array, rendered by codecs compiled once per
+	 * column and encoded straight into a reusable byte buffer in the
+	 * configured charset.
+	 */
+	static int export(final Cursor cursor, final WritableByteChannel out, final ExportOptions options)
+			throws IOException {
+		if (options.orderBy != null && !isOrderedBy(cursor, options.orderBy)) {
+			return exportSorted(cursor, columns -> newRecordWriter(columns, out, options), options);
+		}
+		final RowReader reader = newRowReader(cursor, options);
+		if (options.pipelined) {
+			return PipelinedExport.export(reader, out, options);
+		}
+		return export(reader, newRecordWriter(reader.getColumns(), out, options), options);
+	}
+
+	/**
+	 * Writes every row of the reader and closes the writer.
+	 */
+	static int export(final RowReader reader, final RecordWriter writer, final ExportOptions options)
+			throws IOException {
+		int rows = 0;
+		try {
+			if (options.withHeader) {
+				writer.writeHeader(reader.getColumns());
+			}
+			while (reader.next()) {
+				writer.writeRecord(reader.values());
+				rows++;
+			}
+		} finally {
+			writer.close();
+		}
+		return rows;
+	}
+
+	/**
+	 * Exports the rows sorted by {@code options.orderBy} with an
+	 * {@link ExternalSort}. Sort columns which are not exported are read
+	 * after the exported ones, where the record writer ignores them.
+	 */
+	static int exportSorted(final Cursor cursor, final Function<Column[], RecordWriter> writers,
+			final ExportOptions options) throws IOException {
+		final Table table = cursor.getTable();
+		final List<Column> outputColumns = outputColumns(table, options);
+		final List<Column> columns = new ArrayList<Column>(outputColumns);
+		final int[] keyPositions = new int[options.orderBy.size()];
+		for (int i = 0; i < keyPositions.length; i++) {
+			final Column column = table.getColumn(options.orderBy.get(i));
+			if (!columns.contains(column)) {
+				columns.add(column);
+			}
+			keyPositions[i] = columns.indexOf(column);
+		}
+		final RowReader reader = new RowReader(cursor, columns, rowFilter(table, options));
+		final ExternalSort sort = new ExternalSort(keyPositions, columns.size(), options.sortMemory,
+				options.sortDir);
+		final RecordWriter writer = writers.apply(outputColumns.toArray(new Column[outputColumns.size()]));
+		try {
+			if (options.withHeader) {
+				writer.writeHeader(outputColumns.toArray(new Column[outputColumns.size()]));
+			}
+			return sort.sort(reader, writer::writeRecord);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Opens a cursor on the rows of a table which can match
+	 * {@code options.where}, using an index range when one applies. When
+	 * {@code options.orderBy} is set and an index starts with those columns,
+	 * the cursor follows that index instead so the rows need no sorting.
+	 */
+	static Cursor openCursor(final Table table, final ExportOptions options) throws IOException {
+		if (options.orderBy != null) {
+			final Index index = orderIndex(table, options.orderBy);
+			if (index != null) {
+				return CursorBuilder.createCursor(index);
+			}
+		}
+		return options.where == null ? CursorBuilder.createCursor(table)
+				: RowFilter.parse(options.where, table).openCursor(table);
+	}
+
+	/**
+	 * @return an index whose leading columns are the given columns in
+	 *         ascending order, or null.
+	 */
+	static Index orderIndex(final Table table, final List<String> columnNames) {
+		for (final Index index : table.getIndexes()) {
+			if (isOrderedBy(index, columnNames)) {
+				return index;
+			}
+		}
+		return null;
+	}
+
+	static boolean isOrderedBy(final Cursor cursor, final List<String> columnNames) {
+		return cursor instanceof IndexCursor && isOrderedBy(((IndexCursor) cursor).getIndex(), columnNames);
+	}
+
+	private static boolean isOrderedBy(final Index index, final List<String> columnNames) {
+		final List<? extends Index.Column> indexColumns = index.getColumns();
+		if (indexColumns.size() < columnNames.size()) {
+			return false;
+		}
+		for (int i = 0; i < columnNames.size(); i++) {
+			if (!indexColumns.get(i).isAscending()
+					|| !indexColumns.get(i).getName().equalsIgnoreCase(columnNames.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the columns in {@code options.columns} of the rows matching
+	 * {@code options.where}; the other columns are never decoded.
+	 */
+	static RowReader newRowReader(final Cursor cursor, final ExportOptions options) {
+		final Table table = cursor.getTable();
+		return new RowReader(cursor, outputColumns(table, options), rowFilter(table, options));
+	}
+
+	static List<Column> outputColumns(final Table table, final ExportOptions options) {
+		if (options.columns == null) {
+			return new ArrayList<Column>(table.getColumns());
+		}
+		final List<Column> columns = new ArrayList<Column>();
+		for (final String name : options.columns) {
+			columns.add(table.getColumn(name));
+		}
+		return columns;
+	}
+
+	static RowFilter rowFilter(final Table table, final ExportOptions options) {
+		return options.where == null ? null : RowFilter.parse(options.where, table);
+	}
+
+	static RecordWriter newRecordWriter(final Column[] columns, final WritableByteChannel out,
+			final ExportOptions options) {
+		if (ExportOptions.ARROW.equals(options.format)) {
+			return new ArrowRecordWriter(columns, out, options);
+		}
+		if (ExportOptions.JSON_LINES.equals(options.format)) {
+			return new JsonLinesWriter(columns, out, options);
+		}
+		return new CsvRecordWriter(columns, out, options);
+	}
+
+	static FileChannel openOutputChannel(final File outputFile) throws IOException {
+		return FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Opens an output file, compressing it when the options ask for it.
+	 */
+	static WritableByteChannel openOutput(final File outputFile, final ExportOptions options) throws IOException {
+		return compress(openOutputChannel(outputFile), options);
+	}
+
+	static WritableByteChannel compress(final WritableByteChannel out, final ExportOptions options) {
+		return options.isCompressed() ? new ParallelGzipChannel(out, options.compressThreads) : out;
+	}
+
+	/**
+	 * Prints the compression ratio and throughput of a closed output channel.
+	 */
+	static void reportCompression(final WritableByteChannel out) {
+		if (out instanceof ParallelGzipChannel) {
+			System.out.println(((ParallelGzipChannel) out).summary());
+		}
+	}
+
 	static void export(final File inputFile, final String tableName, final boolean withHeader, final File outputDir,
 			final String csvPrefix, final boolean applyQuotesToAll, final String nullText) throws IOException {
-		final Database db = DatabaseBuilder.open(inputFile);
+		export(inputFile, tableName, ExportOptions.of(withHeader, outputDir, csvPrefix, applyQuotesToAll, nullText));
+	}
+
+	static void export(final File inputFile, final String tableName, final ExportOptions options) throws IOException {
+		final Database db = openReadOnly(inputFile);
 		try {
-			export(db, tableName, new FileWriter(new File(outputDir, csvPrefix + tableName + ".csv")), withHeader,
-					applyQuotesToAll, nullText);
+			if (options.sink != null) {
+				JdbcSink.exportTable(db, tableName, options);
+			} else if (options.stateDir != null) {
+				exportIncremental(db, tableName, options);
+			} else {
+				export(openCursor(db.getTable(tableName), options), options.outputFile(tableName), options);
+			}
 		} finally {
 			db.close();
 		}
 	}
 
+	static final String STDOUT = "-";
+
+	/**
+	 * @return true if the output is standard output ({@code -}) or an
+	 *         existing special file such as a named pipe, rather than a
+	 *         directory for CSV files.
+	 */
+	static boolean isStreamOutput(final File output) {
+		return STDOUT.equals(output.getPath()) || (output.exists() && !output.isDirectory() && !output.isFile());
+	}
+
+	static void exportStream(final File inputFile, final String tableName, final File target,
+			final ExportOptions options) throws IOException {
+		if (STDOUT.equals(target.getPath())) {
+			// not closed, standard output stays usable after the export
+			exportStream(inputFile, tableName, new FileOutputStream(FileDescriptor.out).getChannel(), options);
+		} else {
+			final FileOutputStream pipe = new FileOutputStream(target);
+			try {
+				exportStream(inputFile, tableName, pipe.getChannel(), options);
+			} finally {
+				pipe.close();
+			}
+		}
+	}
+
+	/**
+	 * Streams one table into a channel. Without a table name every table is
+	 * streamed, each preceded by a line built from the table marker. The
+	 * channel is left open. With compression the whole stream, markers
+	 * included, is one gzip stream.
+	 */
+	static void exportStream(final File inputFile, final String tableName, final WritableByteChannel out,
+			final ExportOptions options) throws IOException {
+		if (tableName == null && !options.isCsv()) {
+			throw new IllegalArgumentException("Streaming every table needs the csv format, choose one with --table");
+		}
+		final WritableByteChannel compressed = compress(uncloseable(out), options);
+		final WritableByteChannel target = uncloseable(compressed);
+		final long start = System.nanoTime();
+		final List<TableExportStats> stats = new ArrayList<TableExportStats>();
+		final Database db = openReadOnly(inputFile);
+		try {
+			final List<String> tableNames = tableName != null ? Collections.singletonList(tableName)
+					: new ArrayList<String>(db.getTableNames());
+			for (final String name : tableNames) {
+				if (tableName == null) {
+					final ByteBuffer marker = options.charset
+							.encode(String.format(options.tableMarker, name) + CsvChannelWriter.LINE_END);
+					while (marker.hasRemaining()) {
+						target.write(marker);
+					}
+				}
+				System.out.println(String.format("Streaming '%s'", name));
+				final long tableStart = System.nanoTime();
+				final int rows = export(openCursor(db.getTable(name), options), target, options);
+				stats.add(new TableExportStats(name, rows, System.nanoTime() - tableStart));
+			}
+			compressed.close();
+		} finally {
+			db.close();
+		}
+		reportCompression(compressed);
+		TableExportStats.printSummary(stats, System.nanoTime() - start);
+	}
+
+	/**
+	 * Wraps a channel so that closing the wrapper leaves the channel open.
+	 */
+	static WritableByteChannel uncloseable(final WritableByteChannel channel) {
+		return new WritableByteChannel() {
+			private boolean open = true;
+
+			@Override
+			public int write(final ByteBuffer src) throws IOException {
+				return channel.write(src);
+			}
+
+			@Override
+			public boolean isOpen() {
+				return open && channel.isOpen();
+			}
+
+			@Override
+			public void close() {
+				open = false;
+			}
+		};
+	}
+
+	/**
+	 * Exports one table by splitting it into primary key ranges which are
+	 * scanned concurrently, each by its own worker and read-only
+	 * {@link Database} handle, into part files. The parts are concatenated in
+	 * key order into the final CSV file. Tables without a single-column
+	 * integral primary key are exported sequentially.
+	 */
+	static void exportPartitioned(final File inputFile, final String tableName, final ExportOptions options)
+			throws IOException {
+		final List<KeyRangePartitioner.KeyRange> ranges;
+		final Database catalog = openReadOnly(inputFile);
+		try {
+			ranges = KeyRangePartitioner.partition(catalog.getTable(tableName), options.partitions);
+		} finally {
+			catalog.close();
+		}
+		if (ranges == null || ranges.size() <= 1) {
+			System.out.println(String.format("Table '%s' cannot be partitioned, exporting sequentially", tableName));
+			export(inputFile, tableName, options);
+			return;
+		}
+
+		final File outputFile = options.outputFile(tableName);
+		System.out.println(String.format("Exporting '%s' to %s in %d partitions", tableName, outputFile, ranges.size()));
+		final long start = System.nanoTime();
+		final Queue<KeyRangePartitioner.KeyRange> pending = new ConcurrentLinkedQueue<KeyRangePartitioner.KeyRange>(ranges);
+		final File[] parts = new File[ranges.size()];
+		final long[] partRows = new long[ranges.size()];
+		final int workers = Math.min(ranges.size(), options.threads > 1 ? options.threads : ranges.size());
+		final ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int i = 0; i < workers; i++) {
+				futures.add(executor.submit(() -> {
+					final Database db = openReadOnly(inputFile);
+					try {
+						final Table table = db.getTable(tableName);
+						KeyRangePartitioner.KeyRange range;
+						while ((range = pending.poll()) != null) {
+							final File part = new File(options.outputDir,
+									String.format("%s%s.part%03d.csv", options.csvPrefix, tableName, range.number));
+							parts[range.number] = part;
+							final ExportOptions partOptions = options.copy();
+							partOptions.withHeader = options.withHeader && range.number == 0;
+							partRows[range.number] = export(range.openCursor(table), openOutput(part, options),
+									partOptions);
+						}
+					} finally {
+						db.close();
+					}
+					return null;
+				}));
+			}
+			awaitAll(futures, pending);
+			concatenate(parts, outputFile);
+		} finally {
+			executor.shutdownNow();
+			for (final File part : parts) {
+				if (part != null) {
+					part.delete();
+				}
+			}
+		}
+
+		long rows = 0;
+		for (final long count : partRows) {
+			rows += count;
+		}
+		final TableExportStats stats = new TableExportStats(tableName, rows, System.nanoTime() - start);
+		System.out.println(String.format("%d rows exported from '%s' (%.0f rows/sec)", rows, tableName,
+				stats.rowsPerSecond()));
+	}
+
+	static void concatenate(final File[] parts, final File outputFile) throws IOException {
+		final FileChannel out = openOutputChannel(outputFile);
+		try {
+			for (final File part : parts) {
+				final FileChannel in = FileChannel.open(part.toPath(), StandardOpenOption.READ);
+				try {
+					final long size = in.size();
+					long position = 0;
+					while (position < size) {
+						position += in.transferTo(position, size - position, out);
+					}
+				} finally {
+					in.close();
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
 	static void schema(final File inputFile) throws IOException {
 
 		final Database db = DatabaseBuilder.open(inputFile);
@@ -350,30 +698,216 @@ public class Driver {
 
 	}
 
+	static Database openReadOnly(final File inputFile) throws IOException {
+		return new DatabaseBuilder(inputFile).setReadOnly(true).open();
+	}
+
+	/**
+	 * Table names ordered by descending row count, so that a pool of workers
+	 * picks up the longest exports first and the tail stays short.
+	 */
+	static List<String> tablesLargestFirst(final Database db) throws IOException {
+		final List<Table> tables = new ArrayList<Table>();
+		for (final String tableName : db.getTableNames()) {
+			tables.add(db.getTable(tableName));
+		}
+		tables.sort(Comparator.comparingInt(Table::getRowCount).reversed());
+		return tables.stream().map(Table::getName).collect(Collectors.toList());
+	}
+
+	static TableExportStats exportTable(final Database db, final String tableName, final ExportOptions options)
+			throws IOException {
+		if (options.sink != null) {
+			return JdbcSink.exportTable(db, tableName, options);
+		}
+		if (options.stateDir != null) {
+			return exportIncremental(db, tableName, options);
+		}
+		final File outputFile = options.outputFile(tableName);
+		final long start = System.nanoTime();
+		System.out.println(String.format("Exporting '%s' to %s", tableName, outputFile.toString()));
+		final int rows = export(openCursor(db.getTable(tableName), options), outputFile, options);
+		final TableExportStats stats = new TableExportStats(tableName, rows, System.nanoTime() - start);
+		System.out.println(String.format("%d rows exported from '%s' (%.0f rows/sec)", rows, tableName,
+				stats.rowsPerSecond()));
+		return stats;
+	}
+
+	/**
+	 * Exports into a file, or into numbered part files listed in a manifest
+	 * when {@code options} limits the size of a file.
+	 */
+	static int export(final Cursor cursor, final File outputFile, final ExportOptions options) throws IOException {
+		return export(cursor, cursor.getTable().getName(), outputFile, options);
+	}
+
+	/**
+	 * @param name
+	 *            the name of the numbered part files and the manifest
+	 */
+	static int export(final Cursor cursor, final String name, final File outputFile, final ExportOptions options)
+			throws IOException {
+		if (options.isChunked()) {
+			final Function<Column[], RecordWriter> chunks = columns -> new ChunkedRecordWriter(name, columns,
+					options);
+			if (options.orderBy != null && !isOrderedBy(cursor, options.orderBy)) {
+				return exportSorted(cursor, chunks, options);
+			}
+			final RowReader reader = newRowReader(cursor, options);
+			return export(reader, chunks.apply(reader.getColumns()), options);
+		}
+		final WritableByteChannel out = openOutput(outputFile, options);
+		final int rows = export(cursor, out, options);
+		reportCompression(out);
+		return rows;
+	}
+
+	/**
+	 * Deletes the file, or the part files and manifest, written under the
+	 * name by an earlier export.
+	 */
+	static void deleteOutputs(final String name, final ExportOptions options) throws IOException {
+		final List<File> files = new ArrayList<File>();
+		files.add(options.outputFile(name));
+		files.add(options.manifestFile(name));
+		for (int number = 0; options.chunkFile(name, number).exists(); number++) {
+			files.add(options.chunkFile(name, number));
+		}
+		for (final File file : files) {
+			if (file.exists()) {
+				System.out.println(String.format("Deleting %s of an earlier export", file));
+				if (!file.delete()) {
+					throw new IOException("Could not delete " + file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Exports a table against the checkpoint of its last export in
+	 * {@code options.stateDir}. An unchanged table is skipped and no file is
+	 * written. When rows were only appended, the rows past the last primary
+	 * key are exported through the key index into the delta file of the
+	 * table, see {@link ExportOptions#deltaName(String)}. Otherwise, or when
+	 * the row count shows that older rows changed too, the table is exported
+	 * in full. Files left by an earlier run are deleted first, so that the
+	 * output directory only holds what this run exported. The new checkpoint
+	 * is stored once the file is complete.
+	 */
+	static TableExportStats exportIncremental(final Database db, final String tableName, final ExportOptions options)
+			throws IOException {
+		final Table table = db.getTable(tableName);
+		final TableCheckpoint current = TableCheckpoint.of(table, options);
+		final TableCheckpoint previous = TableCheckpoint.load(options.stateDir, tableName);
+		final String deltaName = ExportOptions.deltaName(tableName);
+		if (current.isUnchangedSince(previous)) {
+			deleteOutputs(tableName, options);
+			deleteOutputs(deltaName, options);
+			System.out.println(String.format("Table '%s' unchanged since the last export, skipped", tableName));
+			return new TableExportStats(tableName, 0, 0);
+		}
+
+		final long start = System.nanoTime();
+		int rows = -1;
+		if (current.canAppendTo(previous)) {
+			// every row past the key, as --where may leave out some of them
+			if (TableCheckpoint.countRowsAfter(table, previous) != current.rowCount - previous.rowCount) {
+				System.out.println(String.format(
+						"Rows of '%s' before key %d changed, exporting the whole table", tableName, previous.maxKey));
+			} else {
+				final File deltaFile = options.outputFile(deltaName);
+				deleteOutputs(tableName, options);
+				System.out.println(String.format("Exporting rows of '%s' after key %d to %s", tableName,
+						previous.maxKey, deltaFile));
+				rows = export(TableCheckpoint.openCursorAfter(table, previous), deltaName, deltaFile, options);
+			}
+		}
+		if (rows < 0) {
+			final File outputFile = options.outputFile(tableName);
+			deleteOutputs(deltaName, options);
+			System.out.println(String.format("Exporting '%s' to %s", tableName, outputFile));
+			rows = export(openCursor(table, options), outputFile, options);
+		}
+		current.store(options.stateDir);
+
+		final TableExportStats stats = new TableExportStats(tableName, rows, System.nanoTime() - start);
+		System.out.println(String.format("%d rows exported from '%s' (%.0f rows/sec)", rows, tableName,
+				stats.rowsPerSecond()));
+		return stats;
+	}
+
 	static void exportAll(final File inputFile, final boolean withHeader, final File outputDir, final String csvPrefix,
 			final boolean applyQuotesToAll, final String nullText) throws IOException {
-		final Database db = DatabaseBuilder.open(inputFile);
+		exportAll(inputFile, ExportOptions.of(withHeader, outputDir, csvPrefix, applyQuotesToAll, nullText));
+	}
+
+	/**
+	 * Exports every table using up to {@code options.threads} workers. Each
+	 * worker opens its own read-only {@link Database} handle and takes the
+	 * next table from a queue ordered largest-first.
+	 */
+	static List<TableExportStats> exportAll(final File inputFile, final ExportOptions options) throws IOException {
+		final long start = System.nanoTime();
+		final Queue<String> pending;
+		final Database catalog = openReadOnly(inputFile);
 		try {
-			for (final String tableName : db.getTableNames()) {
-				final String csvName = csvPrefix + tableName + ".csv";
-				final File outputFile = new File(outputDir, csvName);
-				final Writer csv = new FileWriter(outputFile);
-				try {
-					System.out.println(String.format("Exporting '%s' to %s", tableName, outputFile.toString()));
-					final int rows = export(db, tableName, csv, withHeader, applyQuotesToAll, nullText);
-					System.out.println(String.format("%d rows exported", rows));
-				} finally {
+			pending = new ConcurrentLinkedQueue<String>(tablesLargestFirst(catalog));
+		} finally {
+			catalog.close();
+		}
+
+		final List<TableExportStats> stats = Collections.synchronizedList(new ArrayList<TableExportStats>());
+		final int workers = Math.max(1, Math.min(options.threads, pending.size()));
+		final ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int i = 0; i < workers; i++) {
+				futures.add(executor.submit(() -> {
+					final Database db = openReadOnly(inputFile);
 					try {
-						csv.flush();
-						csv.close();
-					} catch (final IOException ex) {
+						String tableName;
+						while ((tableName = pending.poll()) != null) {
+							stats.add(exportTable(db, tableName, options));
+						}
+					} finally {
+						db.close();
 					}
-				}
+					return null;
+				}));
 			}
+			awaitAll(futures, pending);
 		} finally {
-			db.close();
+			executor.shutdownNow();
 		}
 
+		TableExportStats.printSummary(stats, System.nanoTime() - start);
+		return stats;
+	}
+
+	/**
+	 * Waits for every worker, rethrowing the first failure after draining the
+	 * shared work queue so that the remaining workers stop early.
+	 */
+	static void awaitAll(final List<? extends Future<?>> futures, final Collection<?> pending) throws IOException {
+		IOException failure = null;
+		for (final Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				pending.clear();
+				throw new InterruptedIOException("Interrupted while waiting for export workers");
+			} catch (final ExecutionException e) {
+				pending.clear();
+				if (failure == null) {
+					failure = e.getCause() instanceof IOException ? (IOException) e.getCause()
+							: new IOException(e.getCause());
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
 	}
 
 	static String[] ImportSchemaFileHeaders = new String[] {"column","datatype","length"};
@@ -394,6 +928,76 @@ public class Driver {
 		}
 	}
 
+	/**
+	 * @return the CSV files of a directory, or the files matching a glob in
+	 *         the last name of the path such as data/*.csv, sorted by name and
+	 *         without earlier *.rejects.csv files; otherwise the input itself.
+	 */
+	static List<File> importInputs(final File input) throws IOException {
+		final File dir;
+		final PathMatcher matcher;
+		if (input.isDirectory()) {
+			dir = input;
+			matcher = path -> path.getFileName().toString().toLowerCase().endsWith(".csv");
+		} else if (StringUtils.containsAny(input.getName(), "*?[{")) {
+			dir = input.getAbsoluteFile().getParentFile();
+			matcher = FileSystems.getDefault().getPathMatcher("glob:" + input.getName());
+		} else {
+			return Collections.singletonList(input);
+		}
+		if (!dir.isDirectory()) {
+			return Collections.emptyList();
+		}
+		try (Stream<Path> files = Files.list(dir.toPath())) {
+			// skipping the rejects of an earlier import
+			return files.filter(path -> Files.isRegularFile(path) && matcher.matches(path.getFileName())
+					&& !path.getFileName().toString().toLowerCase().endsWith(".rejects.csv"))
+					.map(Path::toFile).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Loads the <input>.schema file of an import, inferring it first when asked
+	 * to.
+	 *
+	 * @return the schema, or null for none.
+	 */
+	static List<ImportSchemaFile> importSchema(final File inputFile, final String delimiter, final boolean schema,
+			final boolean infer, final int inferRows) throws IOException {
+		List<ImportSchemaFile> improws = null;
+		final String _inputschemafilename = inputFile.getName().trim()+".schema";
+		final String _infpath = inputFile.getPath().trim()+".schema";
+		final File inputschemaFile = new File(_infpath);
+		if (infer) {
+			if (inputschemaFile.exists()) {
+				System.out.println("SchemaFile: " + _inputschemafilename + " exists, not inferring types");
+			} else if (delimiter.length() > 1) {
+				System.out.println("--infer-types needs a single character delimiter, not inferring types");
+			} else {
+				TypeInference.write(TypeInference.infer(inputFile, delimiter.isEmpty() ? ',' : delimiter.charAt(0),
+						inferRows, new Random()), inputschemaFile);
+				System.out.println("SchemaFile: inferred types written to " + _inputschemafilename);
+			}
+		}
+		Boolean schemaFileExists = inputschemaFile.exists();
+		if (schema || schemaFileExists) {					
+			System.out.println("SchemaFile: " + _inputschemafilename);
+			if (!schemaFileExists) {
+				System.out.println("SchemaFile: Does not Exists! Skipping Schema load!");
+			}else
+			{
+				improws = loadSchemafile(inputschemaFile);
+				//System.out.println("SchemaFile Loaded: " + inputschemaFile.getName() + " -> " + improws.size() + " rows ");
+				System.out.println("---------" + inputschemaFile.getName() + "---------");
+				for (ImportSchemaFile irow : improws) {
+					System.out.println(irow.toCsv());
+				}
+				System.out.println("---------" + inputschemaFile.getName() + "---------");
+			}					
+		}
+		return improws;
+	}
+
 	public static void main(final String[] args) throws Exception {
 		final OptionParser parser = new OptionParser();
 
@@ -405,15 +1009,38 @@ public class Driver {
 		final OptionSpec<String> importdelimiter = parser.accepts("import-delimiter").withOptionalArg()
 				.ofType(String.class).defaultsTo(",")
 				.describedAs("Data Delimiter for importing (input) csv file. If not provided defaults to ','");
+		final OptionSpec<Void> inferTypes = parser.accepts("infer-types",
+				"Infer the column types of the --import file from a sample of its rows and write them to <input>.schema, unless that file exists.");
+		final OptionSpec<Integer> inferRows = parser.accepts("infer-rows").withRequiredArg().ofType(Integer.class)
+				.defaultsTo(TypeInference.SAMPLE_ROWS)
+				.describedAs("The rows --infer-types reads from the start of the file, and the size of its random sample of the rest.");
+		final OptionSpec<File> rejectsFile = parser.accepts("rejects").withRequiredArg().ofType(File.class).describedAs(
+				"The CSV file receiving rows rejected by the --schema checks. Defaults to <input>.rejects.csv, created only when a row is rejected.");
+		final OptionSpec<Long> maxErrors = parser.accepts("max-errors").withRequiredArg().ofType(Long.class)
+				.describedAs("Abort the import once more than this many rows were rejected.");
+		final OptionSpec<Void> bulk = parser.accepts("bulk",
+				"Import in large batches with auto sync off and indexes built after the load. Needs a single character delimiter.");
+		final OptionSpec<Integer> importBatchSize = parser.accepts("import-batch-size").withRequiredArg()
+				.ofType(Integer.class).defaultsTo(10000).describedAs("The rows per batch of a --bulk import.");
+		final OptionSpec<Integer> importThreads = parser.accepts("import-threads").withRequiredArg()
+				.ofType(Integer.class).defaultsTo(1)
+				.describedAs("The threads parsing and checking rows of a --bulk import while one thread writes them. With several input files, the files read ahead at a time.");
+		final OptionSpec<String> appendTo = parser.accepts("append-to").withRequiredArg().ofType(String.class)
+				.describedAs("Append the rows to this existing table of the output database instead of creating a table. CSV headers are matched to its columns ignoring case.");
+		final OptionSpec<String> importIndex = parser.accepts("import-index").withRequiredArg().ofType(String.class)
+				.withValuesSeparatedBy(',').describedAs("Columns to index after a --bulk import, separated by commas.");
 		final OptionSpec<String> withHeader = parser.accepts("with-header").withOptionalArg().describedAs(
 				"When with-header is included, a header line of column names is written to each data file.");
 		final OptionSpec<File> input = parser.accepts("input").withRequiredArg().ofType(File.class).required()
-				.describedAs("The input accdb file.");
+				.describedAs("The input accdb file. With --import, the CSV file, a directory of CSV files or a glob such as data/*.csv, all imported into the one output database.");
 		final OptionSpec<String> table = parser.accepts("table").withRequiredArg().ofType(String.class)
 				.describedAs("The table name to export, or all if it is not specified.");
-		final OptionSpec<File> output = parser.accepts("output").requiredUnless("schema").withRequiredArg()
+		final OptionSpec<String> sink = parser.accepts("sink").withRequiredArg().ofType(String.class).describedAs(
+				"A JDBC URL such as jdbc:sqlite:target.db to copy the tables into instead of writing files. Missing tables are created from the Access column types; the JDBC driver must be on the classpath.");
+		final OptionSpec<File> output = parser.accepts("output").requiredUnless("schema", "sink").withRequiredArg()
 				.ofType(File.class).describedAs(
-						"The output directory for data files. This is required for writing data output. This not required for schema output.");
+						"The output directory for data files. This is required for writing data output. This not required for schema output. "
+								+ "Use - to stream CSV to standard output, or give a named pipe to stream into it.");
 		final OptionSpec<String> csvPrefix = parser.accepts("csv-prefix").withRequiredArg().ofType(String.class)
 				.defaultsTo("").describedAs("A prefix to add to all of the generated CSV file names");
 		final OptionSpec<Boolean> quoteAll = parser.accepts("quote-all").withOptionalArg().ofType(Boolean.class)
@@ -426,6 +1053,79 @@ public class Driver {
 						"The text to write when entry is NULL. Defaults to empty output if not specified or if no argument supplied. "
 								+ "If quote-all is set to true then the value for write-null is also quoted.");
 
+		final OptionSpec<Integer> threads = parser.accepts("threads").withRequiredArg().ofType(Integer.class)
+				.defaultsTo(1).describedAs(
+						"The number of tables to export concurrently when no table is specified. Each thread opens its own read-only handle on the input file and the largest tables are exported first.");
+
+		final OptionSpec<Integer> partitions = parser.accepts("partitions").withRequiredArg().ofType(Integer.class)
+				.defaultsTo(1).describedAs(
+						"Used with --table: split the table into this many primary key ranges which are exported concurrently and concatenated in key order. Requires a single-column integer primary key.");
+
+		final OptionSpec<String> charset = parser.accepts("charset").withRequiredArg().ofType(String.class)
+				.defaultsTo(Charset.defaultCharset().name())
+				.describedAs("The character set of the exported CSV files. Defaults to the platform character set.");
+
+		final OptionSpec<String> dateFormat = parser.accepts("date-format").withRequiredArg().ofType(String.class)
+				.defaultsTo(ValueCodecs.ISO_DATE_FORMAT).describedAs(
+						"How date/time values are written: 'iso' for ISO-8601 local date times (e.g. 2020-01-31T13:45:00), 'legacy' for the Java Date.toString() format of older releases, or a SimpleDateFormat pattern.");
+		final OptionSpec<String> booleanFormat = parser.accepts("boolean-format").withRequiredArg()
+				.ofType(String.class).defaultsTo("true,false")
+				.describedAs("The values written for true and false, separated by a comma, e.g. 1,0 or Y,N.");
+
+		final OptionSpec<Void> pipeline = parser.accepts("pipeline",
+				"Export each table with separate threads for reading rows, formatting them and writing to disk, connected by bounded buffers.");
+
+		final OptionSpec<String> tableMarker = parser.accepts("table-marker").withRequiredArg().ofType(String.class)
+				.defaultsTo("-- table: %s").describedAs(
+						"When all tables are streamed to standard output or a named pipe, the line written before each table. %s is replaced by the table name.");
+
+		final OptionSpec<String> compress = parser.accepts("compress").withRequiredArg().ofType(String.class)
+				.defaultsTo(ExportOptions.NO_COMPRESSION).describedAs(
+						"'gzip' to compress the exported files (written as .csv.gz) in independent 1 MB blocks on a thread pool. The result is a standard multi-member gzip file.");
+		final OptionSpec<Integer> compressThreads = parser.accepts("compress-threads").withRequiredArg()
+				.ofType(Integer.class).defaultsTo(Runtime.getRuntime().availableProcessors())
+				.describedAs("The number of threads compressing blocks. Defaults to the number of processors.");
+
+		final OptionSpec<File> stateDir = parser.accepts("state-dir").withRequiredArg().ofType(File.class)
+				.describedAs(
+						"A directory keeping a checkpoint of each exported table. Unchanged tables are skipped and tables with only new rows export just the rows after the last primary key. Rows updated in place are not detected; empty the directory to export everything again.");
+
+		final OptionSpec<File> diff = parser.accepts("diff").withRequiredArg().ofType(File.class).describedAs(
+				"An older copy of the input database. Instead of exporting, write for each table the rows inserted, updated or deleted since that copy, with a leading op column of I, U or D. Rows are matched on the primary key.");
+
+		final OptionSpec<String> columns = parser.accepts("columns").withRequiredArg().ofType(String.class)
+				.withValuesSeparatedBy(',')
+				.describedAs("The columns to export, in order, separated by commas. Defaults to all columns.");
+		final OptionSpec<String> where = parser.accepts("where").withRequiredArg().ofType(String.class).describedAs(
+				"Only export rows matching the condition, e.g. \"Amount >= 100 AND Created BETWEEN '2020-01-01' AND '2020-12-31'\". Supports = <> < <= > >=, IN (...) and BETWEEN joined by AND. Uses a matching index when there is one.");
+
+		final OptionSpec<String> orderBy = parser.accepts("order-by").withRequiredArg().ofType(String.class)
+				.withValuesSeparatedBy(',').describedAs(
+						"Export rows sorted by these columns, separated by commas. An index starting with the columns is used when there is one, otherwise the rows are sorted, spilling to --sort-dir beyond --sort-memory.");
+		final OptionSpec<Integer> sortMemory = parser.accepts("sort-memory").withRequiredArg().ofType(Integer.class)
+				.defaultsTo(256).describedAs("The memory in MB used to sort rows before spilling sorted runs to disk.");
+		final OptionSpec<File> sortDir = parser.accepts("sort-dir").withRequiredArg().ofType(File.class)
+				.describedAs("The directory for sorted runs. Defaults to the system temporary directory.");
+
+		final OptionSpec<Long> maxRowsPerFile = parser.accepts("max-rows-per-file").withRequiredArg()
+				.ofType(Long.class).describedAs(
+						"Split each table into numbered files (Table.0000.csv, Table.0001.csv, ...) of at most this many rows, listed with row counts, sizes and CRC32 checksums in Table.manifest.json.");
+		final OptionSpec<Long> maxBytesPerFile = parser.accepts("max-bytes-per-file").withRequiredArg()
+				.ofType(Long.class).describedAs(
+						"Split each table into numbered files, starting a new file once one holds this many bytes of uncompressed output.");
+		final OptionSpec<String> format = parser.accepts("format").withRequiredArg().ofType(String.class)
+				.defaultsTo(ExportOptions.CSV).describedAs(
+						"The output format: csv, jsonl for one UTF-8 JSON object per row, or arrow for Arrow IPC files with typed columns and dictionary encoded repetitive text.");
+		final OptionSpec<Integer> sinkBatchSize = parser.accepts("sink-batch-size").withRequiredArg()
+				.ofType(Integer.class).defaultsTo(1000).describedAs("The rows per JDBC insert batch.");
+		final OptionSpec<Integer> sinkCommitRows = parser.accepts("sink-commit-rows").withRequiredArg()
+				.ofType(Integer.class).defaultsTo(50000).describedAs("The rows per JDBC transaction.");
+		final OptionSpec<String> binary = parser.accepts("binary").withRequiredArg().ofType(String.class)
+				.defaultsTo(ExportOptions.BINARY_BASE64).describedAs(
+						"How binary, OLE and attachment values are written: base64 inline, or files to write them to Table.files/Column/ with the relative path and size (path;size) in the cell.");
+		final OptionSpec<Integer> recordBatchSize = parser.accepts("record-batch-size").withRequiredArg()
+				.ofType(Integer.class).defaultsTo(65536).describedAs("The rows per record batch of the arrow format.");
+
 		OptionSet options = null;
 
 		try {
@@ -442,7 +1142,9 @@ public class Driver {
 		}
 
 		final File inputFile = input.value(options);
-		if (!inputFile.exists()) {
+		final List<File> inputFiles = options.has(importcsv) ? importInputs(inputFile)
+				: Collections.singletonList(inputFile);
+		if (inputFiles.isEmpty() || !inputFiles.get(0).exists()) {
 			throw new FileNotFoundException("Could not find input file: " + inputFile.toString());
 		}
 
@@ -483,59 +1185,119 @@ public class Driver {
 				System.out.println("InputFile :" + inputFile);
 				System.out.println("OutPut MDB: " + dbFile.getName());
 				final String _delimiter = importdelimiter.value(options);
-				//DataType.fromSQLType(sqlType, lengthInUnits, fileFormat)
-				List<ImportSchemaFile> improws = null;
-				final String _inputschemafilename = inputFile.getName().trim()+".schema";
-				final String _infpath = inputFile.getPath().trim()+".schema";
-				final File inputschemaFile = new File(_infpath);
-				Boolean schemaFileExists = inputschemaFile.exists();
-				if (options.has(schema) || schemaFileExists) {					
-					System.out.println("SchemaFile: " + _inputschemafilename);
-					if (!schemaFileExists) {
-						System.out.println("SchemaFile: Does not Exists! Skipping Schema load!");
-					}else
-					{
-						improws = loadSchemafile(inputschemaFile);
-						//System.out.println("SchemaFile Loaded: " + inputschemaFile.getName() + " -> " + improws.size() + " rows ");
-						System.out.println("---------" + inputschemaFile.getName() + "---------");
-						for (ImportSchemaFile irow : improws) {
-							System.out.println(irow.toCsv());
-						}
-						System.out.println("---------" + inputschemaFile.getName() + "---------");
-					}					
-				}
+				final boolean _schema = options.has(schema);
+				final boolean _infer = options.has(inferTypes);
+				final int _inferRows = Math.max(1, inferRows.value(options));
 
-				importCSV(inputFile, dbFile, _delimiter, DataType.MEMO, improws);				
+				final ImportOptions importOptions = new ImportOptions();
+				importOptions.bulk = options.has(bulk);
+				importOptions.rejectsFile = rejectsFile.value(options);
+				if (options.has(maxErrors)) {
+					importOptions.maxErrors = maxErrors.value(options);
+				}
+				importOptions.batchSize = Math.max(1, importBatchSize.value(options));
+				importOptions.threads = Math.max(1, importThreads.value(options));
+				importOptions.appendTo = appendTo.value(options);
+				if (options.has(importIndex)) {
+					importOptions.indexColumns = importIndex.values(options);
+				}
+				if (inputFiles.size() > 1) {
+					MultiFileImport.importFiles(inputFiles, dbFile, _delimiter, DataType.MEMO,
+							file -> importSchema(file, _delimiter, _schema, _infer, _inferRows), importOptions);
+				} else {
+					final File _inputFile = inputFiles.get(0);
+					importCSV(_inputFile, dbFile, _delimiter, DataType.MEMO,
+							importSchema(_inputFile, _delimiter, _schema, _infer, _inferRows), importOptions);
+				}
 				System.out.println("Importing data into mdb completed!");
 			}
 
 		} else {
 			// process all extractions
 			File outputDir = null;
+			boolean stream = false;
 			if (options.has(output)) {
 				outputDir = output.value(options);
-				if (!outputDir.exists()) {
+				stream = isStreamOutput(outputDir);
+				if (!stream && !outputDir.exists()) {
 					outputDir.mkdirs();
 				}
 			}
 
-			final boolean applyQuotesToAll = quoteAll.value(options);
-			final String nullText = writeNull.value(options);
-    
-		if (options.has(schema)) {
-			schema(inputFile);
-		}
-		
-		if (null != outputDir) {
-			if (options.has(table)){
-				export(inputFile, table.value(options), options.has(withHeader), outputDir, csvPrefix.value(options), applyQuotesToAll, nullText);
+			final ExportOptions exportOptions = ExportOptions.of(options.has(withHeader), outputDir,
+					csvPrefix.value(options), quoteAll.value(options), writeNull.value(options));
+			exportOptions.charset = Charset.forName(charset.value(options));
+			exportOptions.dateFormat = dateFormat.value(options);
+			exportOptions.setBooleanFormat(booleanFormat.value(options));
+			exportOptions.pipelined = options.has(pipeline);
+			exportOptions.threads = threads.value(options);
+			exportOptions.partitions = partitions.value(options);
+			exportOptions.tableMarker = tableMarker.value(options);
+			exportOptions.setCompression(compress.value(options));
+			exportOptions.compressThreads = compressThreads.value(options);
+			if (options.has(columns)) {
+				exportOptions.columns = columns.values(options);
+			}
+			exportOptions.where = where.value(options);
+			if (options.has(orderBy)) {
+				exportOptions.orderBy = orderBy.values(options);
+			}
+			exportOptions.sortMemory = sortMemory.value(options) * 1024L * 1024L;
+			exportOptions.sortDir = sortDir.value(options);
+			if (options.has(maxRowsPerFile)) {
+				exportOptions.maxRowsPerFile = maxRowsPerFile.value(options);
+			}
+			if (options.has(maxBytesPerFile)) {
+				exportOptions.maxBytesPerFile = maxBytesPerFile.value(options);
+			}
+			exportOptions.setFormat(format.value(options));
+			exportOptions.recordBatchSize = recordBatchSize.value(options);
+			exportOptions.setBinary(binary.value(options));
+			exportOptions.sink = sink.value(options);
+			exportOptions.sinkBatchSize = Math.max(1, sinkBatchSize.value(options));
+			exportOptions.sinkCommitRows = Math.max(1, sinkCommitRows.value(options));
+			if (options.has(stateDir)) {
+				exportOptions.stateDir = stateDir.value(options);
+				exportOptions.stateDir.mkdirs();
+			}
+
+			// when the data goes to standard output, messages go to standard error
+			final PrintStream console = System.out;
+			if (stream && STDOUT.equals(outputDir.getPath())) {
+				System.setOut(System.err);
+			}
+			try {
+				if (options.has(schema)) {
+					schema(inputFile);
+				}
+
+				if (options.has(diff) && (null == outputDir || stream)) {
+					throw new IllegalArgumentException("--diff writes a change set file per table and needs an --output directory");
+				}
+				if (ExportOptions.BINARY_FILES.equals(exportOptions.binary) && stream) {
+					throw new IllegalArgumentException("--binary files writes side files and needs an --output directory");
+				}
+				if (options.has(diff)) {
+					SnapshotDiff.diff(diff.value(options), inputFile, options.has(table) ? table.value(options) : null,
+							exportOptions);
+				} else if (stream) {
+					exportStream(inputFile, options.has(table) ? table.value(options) : null, outputDir, exportOptions);
+				} else if (null != outputDir || null != exportOptions.sink) {
+					if (options.has(table)) {
+						if (exportOptions.partitions > 1 && exportOptions.stateDir == null && exportOptions.sink == null
+								&& exportOptions.orderBy == null && !exportOptions.isChunked() && exportOptions.isConcatenable()) {
+							exportPartitioned(inputFile, table.value(options), exportOptions);
+						} else {
+							export(inputFile, table.value(options), exportOptions);
+						}
+					} else {
+						exportAll(inputFile, exportOptions);
+					}
+				}
+			} finally {
+				System.setOut(console);
 			}
-			else {
-				exportAll(inputFile, options.has(withHeader), outputDir, csvPrefix.value(options), applyQuotesToAll, nullText);
-			}	
-		
 		}
 	}
-	
-}
+
 }
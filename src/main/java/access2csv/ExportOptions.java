@@ -0,0 +1,214 @@
+package access2csv;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Settings shared by the export paths, populated from the command line.
+ */
+public class ExportOptions implements Cloneable {
+	static final String NO_COMPRESSION = "none";
+	static final String GZIP = "gzip";
+	static final String CSV = "csv";
+	static final String ARROW = "arrow";
+	static final String JSON_LINES = "jsonl";
+	static final String BINARY_BASE64 = "base64";
+	static final String BINARY_FILES = "files";
+
+	public boolean withHeader = false;
+	public File outputDir;
+	public String csvPrefix = "";
+	public boolean applyQuotesToAll = true;
+	public String nullText = "";
+	public Charset charset = Charset.defaultCharset();
+	public String dateFormat = ValueCodecs.ISO_DATE_FORMAT;
+	public String trueText = Boolean.TRUE.toString();
+	public String falseText = Boolean.FALSE.toString();
+	public String tableMarker = "-- table: %s";
+	public boolean pipelined = false;
+	public int threads = 1;
+	public int partitions = 1;
+	public String compression = NO_COMPRESSION;
+	public int compressThreads = Runtime.getRuntime().availableProcessors();
+	public File stateDir;
+	/** The names of the columns to export in order, or null for all. */
+	public List<String> columns;
+	/** A {@link RowFilter} expression, or null for all rows. */
+	public String where;
+	/** The columns to sort the rows by, or null for table order. */
+	public List<String> orderBy;
+	public long sortMemory = 256L * 1024 * 1024;
+	/** The directory for sorted runs, or null for the temporary directory. */
+	public File sortDir;
+	/** The most rows per output file, or 0 for one file per table. */
+	public long maxRowsPerFile;
+	/** The most uncompressed bytes per output file, or 0 for one file per table. */
+	public long maxBytesPerFile;
+	public String format = CSV;
+	/** How binary and attachment values are written, see {@link BinaryCodecs}. */
+	public String binary = BINARY_BASE64;
+	/** Side file numbers per output directory, shared by copies of the options. */
+	final Map<String, AtomicLong> sideFileCounters = new ConcurrentHashMap<String, AtomicLong>();
+	/** A JDBC URL to copy the tables into instead of writing files, or null. */
+	public String sink;
+	public int sinkBatchSize = 1000;
+	public int sinkCommitRows = 50000;
+	/** The rows per record batch of columnar formats. */
+	public int recordBatchSize = 65536;
+
+	static ExportOptions of(final boolean withHeader, final File outputDir, final String csvPrefix,
+			final boolean applyQuotesToAll, final String nullText) {
+		final ExportOptions options = new ExportOptions();
+		options.withHeader = withHeader;
+		options.outputDir = outputDir;
+		options.csvPrefix = csvPrefix;
+		options.applyQuotesToAll = applyQuotesToAll;
+		options.nullText = nullText;
+		return options;
+	}
+
+	ExportOptions copy() {
+		try {
+			return (ExportOptions) clone();
+		} catch (final CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Sets the boolean representation from a {@code true,false} pair such as
+	 * {@code 1,0} or {@code Y,N}.
+	 */
+	void setBooleanFormat(final String format) {
+		final String[] parts = format.split(",", -1);
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Boolean format must be two values separated by a comma: " + format);
+		}
+		trueText = parts[0];
+		falseText = parts[1];
+	}
+
+	void setCompression(final String compression) {
+		if (!NO_COMPRESSION.equalsIgnoreCase(compression) && !GZIP.equalsIgnoreCase(compression)) {
+			throw new IllegalArgumentException("Unsupported compression, expected none or gzip: " + compression);
+		}
+		this.compression = compression.toLowerCase();
+	}
+
+	void setFormat(final String format) {
+		if (!CSV.equalsIgnoreCase(format) && !ARROW.equalsIgnoreCase(format) && !JSON_LINES.equalsIgnoreCase(format)) {
+			throw new IllegalArgumentException("Unsupported format, expected csv, jsonl or arrow: " + format);
+		}
+		this.format = format.toLowerCase();
+	}
+
+	void setBinary(final String binary) {
+		if (!BINARY_BASE64.equalsIgnoreCase(binary) && !BINARY_FILES.equalsIgnoreCase(binary)) {
+			throw new IllegalArgumentException("Unsupported binary mode, expected base64 or files: " + binary);
+		}
+		this.binary = binary.toLowerCase();
+	}
+
+	/**
+	 * @return the counter of the side files in a directory of the output,
+	 *         starting after the highest number already there, so that a
+	 *         later run into the same output never overwrites the files the
+	 *         rows of an earlier run point at.
+	 */
+	AtomicLong sideFileCounter(final String directory) {
+		final File dir = new File(outputDir, directory);
+		return sideFileCounters.computeIfAbsent(dir.getPath(), d -> new AtomicLong(highestSideFile(dir)));
+	}
+
+	private static long highestSideFile(final File dir) {
+		long highest = 0;
+		final String[] names = dir.list();
+		if (names != null) {
+			for (final String name : names) {
+				final String number = name.endsWith(".bin") ? name.substring(0, name.length() - 4) : name;
+				if (!number.isEmpty() && number.length() <= 18 && number.chars().allMatch(Character::isDigit)) {
+					highest = Math.max(highest, Long.parseLong(number));
+				}
+			}
+		}
+		return highest;
+	}
+
+	boolean isCsv() {
+		return CSV.equals(format);
+	}
+
+	/**
+	 * @return whether files of the format can be joined by concatenation.
+	 */
+	boolean isConcatenable() {
+		return !ARROW.equals(format);
+	}
+
+	boolean isCompressed() {
+		return GZIP.equals(compression);
+	}
+
+	boolean isChunked() {
+		return maxRowsPerFile > 0 || maxBytesPerFile > 0;
+	}
+
+	/**
+	 * @return the file name extension of the output files.
+	 */
+	String extension() {
+		return "." + format + (isCompressed() ? ".gz" : "");
+	}
+
+	/**
+	 * @return the name under which the rows appended to a table since the
+	 *         last incremental export are written, such as
+	 *         {@code Orders.delta}.
+	 */
+	static String deltaName(final String tableName) {
+		return tableName + ".delta";
+	}
+
+	File outputFile(final String tableName) {
+		return new File(outputDir, csvPrefix + tableName + extension());
+	}
+
+	/**
+	 * Hashes the options which change the rows or the files written, so that
+	 * an incremental export with other options exports every table again.
+	 */
+	long outputHash() {
+		final String settings = String.join("\n", String.valueOf(withHeader), csvPrefix,
+				String.valueOf(applyQuotesToAll), nullText, charset.name(), dateFormat, trueText, falseText,
+				compression, String.valueOf(columns), String.valueOf(where), String.valueOf(orderBy),
+				String.valueOf(maxRowsPerFile), String.valueOf(maxBytesPerFile), format, binary);
+		final CRC32 crc = new CRC32();
+		crc.update(settings.getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+
+	/**
+	 * @return the CSV file of a table whatever the {@link #format}, for output
+	 *         which is always CSV such as a change set.
+	 */
+	File csvFile(final String tableName) {
+		return new File(outputDir, csvPrefix + tableName + "." + CSV + (isCompressed() ? ".gz" : ""));
+	}
+
+	/**
+	 * @return the numbered file of a table split by {@link #isChunked()}.
+	 */
+	File chunkFile(final String tableName, final int number) {
+		return new File(outputDir, String.format("%s%s.%04d%s", csvPrefix, tableName, number, extension()));
+	}
+
+	File manifestFile(final String tableName) {
+		return new File(outputDir, csvPrefix + tableName + ".manifest.json");
+	}
+}
@@ -0,0 +1,394 @@
+package access2csv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts rows under a memory budget. Rows are collected until their
+ * estimated size reaches the budget, sorted and spilled to a temporary run
+ * file; the runs are then merged. Rows which fit the budget are sorted in
+ * memory without touching the disk.
+ */
+class ExternalSort {
+	static final int MERGE_BUFFER_SIZE = 1 << 16;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte LONG = 3;
+	private static final byte SHORT = 4;
+	private static final byte BYTE = 5;
+	private static final byte DOUBLE = 6;
+	private static final byte FLOAT = 7;
+	private static final byte DECIMAL = 8;
+	private static final byte BOOLEAN = 9;
+	private static final byte DATE = 10;
+	private static final byte LOCAL_DATE_TIME = 11;
+	private static final byte BINARY = 12;
+	private static final byte ATTACHMENTS = 13;
+
+	/**
+	 * Receives the sorted rows.
+	 */
+	interface RowSink {
+		void accept(Object[] row) throws IOException;
+	}
+
+	private final Comparator<Object[]> comparator;
+	private final long memoryBudget;
+	private final File tempDir;
+	private final int width;
+
+	/**
+	 * @param keyPositions
+	 *            positions of the sort columns, most significant first
+	 * @param width
+	 *            number of values per row
+	 */
+	ExternalSort(final int[] keyPositions, final int width, final long memoryBudget, final File tempDir) {
+		this.comparator = comparator(keyPositions);
+		this.width = width;
+		this.memoryBudget = memoryBudget;
+		this.tempDir = tempDir;
+	}
+
+	/**
+	 * Reads every row of the reader and passes them to the sink in order.
+	 *
+	 * @return the number of rows
+	 */
+	int sort(final RowReader reader, final RowSink sink) throws IOException {
+		final List<File> runs = new ArrayList<File>();
+		try {
+			List<Object[]> buffer = new ArrayList<Object[]>();
+			long bufferSize = 0;
+			int rows = 0;
+			while (reader.next()) {
+				final Object[] row = reader.values().clone();
+				for (int i = 0; i < row.length; i++) {
+					// the same values whether the rows stay in memory or spill
+					if (BinaryCodecs.isAttachments(row[i])) {
+						row[i] = BinaryCodecs.Attachments.of(row[i]);
+					}
+				}
+				buffer.add(row);
+				bufferSize += estimateSize(row);
+				rows++;
+				if (bufferSize >= memoryBudget) {
+					runs.add(spill(buffer));
+					buffer = new ArrayList<Object[]>();
+					bufferSize = 0;
+				}
+			}
+			if (runs.isEmpty()) {
+				buffer.sort(comparator);
+				for (final Object[] row : buffer) {
+					sink.accept(row);
+				}
+			} else {
+				if (!buffer.isEmpty()) {
+					runs.add(spill(buffer));
+				}
+				buffer = null;
+				merge(runs, sink);
+			}
+			return rows;
+		} finally {
+			for (final File run : runs) {
+				run.delete();
+			}
+		}
+	}
+
+	private File spill(final List<Object[]> buffer) throws IOException {
+		buffer.sort(comparator);
+		final File run = File.createTempFile("access2csv-sort", ".run", tempDir);
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(run), MERGE_BUFFER_SIZE));
+		try {
+			for (final Object[] row : buffer) {
+				writeRow(out, row);
+			}
+		} finally {
+			out.close();
+		}
+		return run;
+	}
+
+	/**
+	 * One run file during the merge, positioned on its smallest unread row.
+	 */
+	private final class Run {
+		final DataInputStream in;
+		Object[] head;
+
+		Run(final File file) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), MERGE_BUFFER_SIZE));
+		}
+
+		boolean advance() throws IOException {
+			head = readRow(in, width);
+			return head != null;
+		}
+	}
+
+	private void merge(final List<File> files, final RowSink sink) throws IOException {
+		final PriorityQueue<Run> queue = new PriorityQueue<Run>(files.size(),
+				(a, b) -> comparator.compare(a.head, b.head));
+		final List<Run> runs = new ArrayList<Run>();
+		try {
+			for (final File file : files) {
+				final Run run = new Run(file);
+				runs.add(run);
+				if (run.advance()) {
+					queue.add(run);
+				}
+			}
+			Run run;
+			while ((run = queue.poll()) != null) {
+				sink.accept(run.head);
+				if (run.advance()) {
+					queue.add(run);
+				}
+			}
+		} finally {
+			for (final Run open : runs) {
+				open.in.close();
+			}
+		}
+	}
+
+	/**
+	 * Orders rows by the key columns, nulls first. Text is ordered ignoring
+	 * case first, like an Access index, then by case.
+	 */
+	static Comparator<Object[]> comparator(final int[] keyPositions) {
+		return (a, b) -> {
+			for (final int position : keyPositions) {
+				final int result = compareValues(a[position], b[position]);
+				if (result != 0) {
+					return result;
+				}
+			}
+			return 0;
+		};
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static int compareValues(final Object a, final Object b) {
+		if (a == null || b == null) {
+			return a == null ? (b == null ? 0 : -1) : 1;
+		}
+		if (a instanceof String && b instanceof String) {
+			final int result = ((String) a).compareToIgnoreCase((String) b);
+			return result != 0 ? result : ((String) a).compareTo((String) b);
+		}
+		if (a instanceof byte[] && b instanceof byte[]) {
+			final byte[] x = (byte[]) a;
+			final byte[] y = (byte[]) b;
+			for (int i = 0, n = Math.min(x.length, y.length); i < n; i++) {
+				if (x[i] != y[i]) {
+					return (x[i] & 0xff) - (y[i] & 0xff);
+				}
+			}
+			return x.length - y.length;
+		}
+		if (a instanceof Byte && b instanceof Byte) {
+			// BYTE is unsigned, as in the index order
+			return ((Byte) a & 0xff) - ((Byte) b & 0xff);
+		}
+		if (a.getClass() == b.getClass() && a instanceof Comparable) {
+			return ((Comparable) a).compareTo(b);
+		}
+		return RowFilter.compare(a, b);
+	}
+
+	/**
+	 * A rough heap footprint of a row, enough to keep the budget honest.
+	 */
+	static long estimateSize(final Object[] row) {
+		long size = 16 + 8L * row.length;
+		for (final Object value : row) {
+			if (value instanceof String) {
+				size += 40 + 2L * ((String) value).length();
+			} else if (value instanceof byte[]) {
+				size += 16 + ((byte[]) value).length;
+			} else if (value instanceof BinaryCodecs.Attachments) {
+				size += 64;
+				for (final byte[] data : ((BinaryCodecs.Attachments) value).data) {
+					size += 16 + (data == null ? 0 : data.length);
+				}
+			} else if (value instanceof BigDecimal) {
+				size += 64;
+			} else if (value != null) {
+				size += 24;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Writes the values with a type tag each. Attachments are written with
+	 * their file names and data; other types without a tag, such as the
+	 * remaining complex column values, are written as their text.
+	 */
+	static void writeRow(final DataOutputStream out, final Object[] row) throws IOException {
+		for (final Object value : row) {
+			if (value == null) {
+				out.writeByte(NULL);
+			} else if (value instanceof String) {
+				out.writeByte(STRING);
+				writeString(out, (String) value);
+			} else if (value instanceof Integer) {
+				out.writeByte(INTEGER);
+				out.writeInt((Integer) value);
+			} else if (value instanceof Long) {
+				out.writeByte(LONG);
+				out.writeLong((Long) value);
+			} else if (value instanceof Short) {
+				out.writeByte(SHORT);
+				out.writeShort((Short) value);
+			} else if (value instanceof Byte) {
+				out.writeByte(BYTE);
+				out.writeByte((Byte) value);
+			} else if (value instanceof Double) {
+				out.writeByte(DOUBLE);
+				out.writeDouble((Double) value);
+			} else if (value instanceof Float) {
+				out.writeByte(FLOAT);
+				out.writeFloat((Float) value);
+			} else if (value instanceof BigDecimal) {
+				out.writeByte(DECIMAL);
+				writeString(out, value.toString());
+			} else if (value instanceof Boolean) {
+				out.writeByte(BOOLEAN);
+				out.writeBoolean((Boolean) value);
+			} else if (value instanceof Date) {
+				out.writeByte(DATE);
+				out.writeLong(((Date) value).getTime());
+			} else if (value instanceof LocalDateTime) {
+				out.writeByte(LOCAL_DATE_TIME);
+				writeString(out, value.toString());
+			} else if (value instanceof byte[]) {
+				out.writeByte(BINARY);
+				writeBytes(out, (byte[]) value);
+			} else if (value instanceof BinaryCodecs.Attachments) {
+				final BinaryCodecs.Attachments attachments = (BinaryCodecs.Attachments) value;
+				out.writeByte(ATTACHMENTS);
+				out.writeInt(attachments.key);
+				out.writeInt(attachments.names.length);
+				for (int i = 0; i < attachments.names.length; i++) {
+					writeString(out, attachments.names[i] == null ? "" : attachments.names[i]);
+					writeBytes(out, attachments.data[i] == null ? new byte[0] : attachments.data[i]);
+				}
+			} else {
+				out.writeByte(STRING);
+				writeString(out, value.toString());
+			}
+		}
+	}
+
+	/**
+	 * @return the next row, or null at the end of the stream.
+	 */
+	static Object[] readRow(final DataInputStream in, final int width) throws IOException {
+		final int first = in.read();
+		if (first < 0) {
+			return null;
+		}
+		final Object[] row = new Object[width];
+		for (int i = 0; i < width; i++) {
+			final int tag = i == 0 ? first : in.readByte();
+			switch (tag) {
+			case NULL:
+				break;
+			case STRING:
+				row[i] = readString(in);
+				break;
+			case INTEGER:
+				row[i] = in.readInt();
+				break;
+			case LONG:
+				row[i] = in.readLong();
+				break;
+			case SHORT:
+				row[i] = in.readShort();
+				break;
+			case BYTE:
+				row[i] = in.readByte();
+				break;
+			case DOUBLE:
+				row[i] = in.readDouble();
+				break;
+			case FLOAT:
+				row[i] = in.readFloat();
+				break;
+			case DECIMAL:
+				row[i] = new BigDecimal(readString(in));
+				break;
+			case BOOLEAN:
+				row[i] = in.readBoolean();
+				break;
+			case DATE:
+				row[i] = new Date(in.readLong());
+				break;
+			case LOCAL_DATE_TIME:
+				row[i] = LocalDateTime.parse(readString(in));
+				break;
+			case BINARY:
+				row[i] = readBytes(in);
+				break;
+			case ATTACHMENTS:
+				final int key = in.readInt();
+				final String[] names = new String[in.readInt()];
+				final byte[][] data = new byte[names.length][];
+				for (int a = 0; a < names.length; a++) {
+					names[a] = readString(in);
+					data[a] = readBytes(in);
+				}
+				row[i] = new BinaryCodecs.Attachments(key, names, data);
+				break;
+			default:
+				throw new IOException("Corrupt sort run, unknown value tag " + tag);
+			}
+		}
+		return row;
+	}
+
+	private static void writeBytes(final DataOutputStream out, final byte[] value) throws IOException {
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	private static byte[] readBytes(final DataInputStream in) throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static void writeString(final DataOutputStream out, final String value) throws IOException {
+		out.writeInt(value.length());
+		out.writeChars(value);
+	}
+
+	private static String readString(final DataInputStream in) throws IOException {
+		final char[] chars = new char[in.readInt()];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = in.readChar();
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,202 @@
+package access2csv;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A minimal FlatBuffers builder, enough for the Arrow IPC metadata. Like
+ * the reference builder it fills the buffer from the back, so children are
+ * created before the tables which refer to them and every offset points
+ * forward. Vtables are not shared.
+ */
+final class FlatBufferBuilder {
+	private byte[] buffer;
+	/** Start of the used part of the buffer, which grows downwards. */
+	private int space;
+	private int minAlign = 1;
+	private int[] vtable;
+	private int objectStart;
+
+	FlatBufferBuilder(final int initialSize) {
+		buffer = new byte[Math.max(16, initialSize)];
+		space = buffer.length;
+	}
+
+	/**
+	 * @return the offset of the last written value, counted from the end.
+	 */
+	int offset() {
+		return buffer.length - space;
+	}
+
+	/**
+	 * Pads so that {@code size} bytes written after {@code additionalBytes}
+	 * more are aligned to {@code size}.
+	 */
+	void prep(final int size, final int additionalBytes) {
+		if (size > minAlign) {
+			minAlign = size;
+		}
+		final int alignSize = (~(offset() + additionalBytes) + 1) & (size - 1);
+		while (space < alignSize + size + additionalBytes) {
+			final int oldLength = buffer.length;
+			final byte[] grown = new byte[oldLength * 2];
+			System.arraycopy(buffer, space, grown, space + oldLength, oldLength - space);
+			buffer = grown;
+			space += oldLength;
+		}
+		for (int i = 0; i < alignSize; i++) {
+			buffer[--space] = 0;
+		}
+	}
+
+	void putByte(final int value) {
+		buffer[--space] = (byte) value;
+	}
+
+	void putShort(final int value) {
+		putByte(value >> 8);
+		putByte(value);
+	}
+
+	void putInt(final int value) {
+		putByte(value >> 24);
+		putByte(value >> 16);
+		putByte(value >> 8);
+		putByte(value);
+	}
+
+	void putLong(final long value) {
+		putInt((int) (value >> 32));
+		putInt((int) value);
+	}
+
+	void addByte(final int value) {
+		prep(1, 0);
+		putByte(value);
+	}
+
+	void addShort(final int value) {
+		prep(2, 0);
+		putShort(value);
+	}
+
+	void addInt(final int value) {
+		prep(4, 0);
+		putInt(value);
+	}
+
+	void addLong(final long value) {
+		prep(8, 0);
+		putLong(value);
+	}
+
+	/**
+	 * Writes a reference to an object created earlier.
+	 */
+	void addOffset(final int target) {
+		prep(4, 0);
+		putInt(offset() - target + 4);
+	}
+
+	int createString(final String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		addByte(0);
+		startVector(1, bytes.length, 1);
+		space -= bytes.length;
+		System.arraycopy(bytes, 0, buffer, space, bytes.length);
+		return endVector(bytes.length);
+	}
+
+	/**
+	 * Starts a vector; the elements are then written last to first.
+	 */
+	void startVector(final int elementSize, final int count, final int alignment) {
+		prep(4, elementSize * count);
+		prep(alignment, elementSize * count);
+	}
+
+	int endVector(final int count) {
+		addInt(count);
+		return offset();
+	}
+
+	int createOffsetVector(final int[] offsets) {
+		startVector(4, offsets.length, 4);
+		for (int i = offsets.length - 1; i >= 0; i--) {
+			addOffset(offsets[i]);
+		}
+		return endVector(offsets.length);
+	}
+
+	void startTable(final int fieldCount) {
+		vtable = new int[fieldCount];
+		objectStart = offset();
+	}
+
+	void addByteField(final int field, final int value) {
+		addByte(value);
+		vtable[field] = offset();
+	}
+
+	void addBooleanField(final int field, final boolean value) {
+		addByteField(field, value ? 1 : 0);
+	}
+
+	void addShortField(final int field, final int value) {
+		addShort(value);
+		vtable[field] = offset();
+	}
+
+	void addIntField(final int field, final int value) {
+		addInt(value);
+		vtable[field] = offset();
+	}
+
+	void addLongField(final int field, final long value) {
+		addLong(value);
+		vtable[field] = offset();
+	}
+
+	void addOffsetField(final int field, final int target) {
+		addOffset(target);
+		vtable[field] = offset();
+	}
+
+	/**
+	 * Writes the vtable of the current table.
+	 *
+	 * @return the offset of the table
+	 */
+	int endTable() {
+		addInt(0);
+		final int objectOffset = offset();
+		int fieldCount = vtable.length;
+		while (fieldCount > 0 && vtable[fieldCount - 1] == 0) {
+			fieldCount--;
+		}
+		for (int i = fieldCount - 1; i >= 0; i--) {
+			addShort(vtable[i] != 0 ? objectOffset - vtable[i] : 0);
+		}
+		addShort(objectOffset - objectStart);
+		addShort((fieldCount + 2) * 2);
+		final int vtableOffset = offset();
+		final int position = buffer.length - objectOffset;
+		final int soffset = vtableOffset - objectOffset;
+		buffer[position] = (byte) soffset;
+		buffer[position + 1] = (byte) (soffset >> 8);
+		buffer[position + 2] = (byte) (soffset >> 16);
+		buffer[position + 3] = (byte) (soffset >> 24);
+		vtable = null;
+		return objectOffset;
+	}
+
+	/**
+	 * Writes the root reference and returns the finished buffer.
+	 */
+	byte[] finish(final int root) {
+		prep(minAlign, 4);
+		addOffset(root);
+		return Arrays.copyOfRange(buffer, space, buffer.length);
+	}
+}
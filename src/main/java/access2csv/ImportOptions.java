@@ -0,0 +1,37 @@
+package access2csv;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Settings of the CSV import, populated from the command line.
+ */
+public class ImportOptions implements Cloneable {
+	/** Load through {@link BulkImporter} instead of Jackcess' ImportUtil. */
+	public boolean bulk = false;
+	/** The existing table to append the rows to, or null for a new table. */
+	public String appendTo;
+	/** The rows per {@code Table.addRows} call of the bulk import. */
+	public int batchSize = 10000;
+	/**
+	 * The threads parsing the rows of a bulk import, 1 parses on the writing
+	 * thread; with several input files, the threads reading files ahead.
+	 */
+	public int threads = 1;
+	/** Columns to index once the rows are loaded, or null for none. */
+	public List<String> indexColumns;
+	/** The file of rejected rows, or null for one next to the input. */
+	public File rejectsFile;
+	/** The rejected rows tolerated before the import aborts, or -1 for any number. */
+	public long maxErrors = -1;
+	/** The rejected rows printed to the console. */
+	public int consoleErrors = 10;
+
+	ImportOptions copy() {
+		try {
+			return (ImportOptions) clone();
+		} catch (final CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -7,6 +7,7 @@ import com.healthmarketscience.jackcess.DataType;
 public class ImportSchemaFile {
     private String column;
 	private String datatype;
+	private String length;
 
 	public DataType defaultDataType = DataType.MEMO;
 	
@@ -26,13 +27,33 @@ public class ImportSchemaFile {
 		this.datatype = datatype;
 	}
 
+	public String getlength() {
+		return length;
+	}
+
+	public void setlength(String length) {
+		this.length = length;
+	}
+
+	/**
+	 * @return the length of the column in characters, or 0 when none is given.
+	 */
+	public int toLength() {
+		try {
+			return length == null || length.trim().isEmpty() ? 0 : Math.max(0, Integer.parseInt(length.trim()));
+		} catch (NumberFormatException e) {
+			System.out.println("(" + column + ") -> length " + length + " -> incorrect! -> ignoring");
+			return 0;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "{" + column + "::" + datatype + "}";
 	}
 
 	public String toCsv() {
-		return column + "," + datatype;
+		return column + "," + datatype + (length == null || length.isEmpty() ? "" : "," + length);
 	}
 
 	public Boolean isHeader(){
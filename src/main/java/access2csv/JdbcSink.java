@@ -0,0 +1,300 @@
+package access2csv;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.Cursor;
+import com.healthmarketscience.jackcess.Database;
+import com.healthmarketscience.jackcess.Table;
+
+/**
+ * Copies tables into a JDBC database instead of writing files. A missing
+ * target table is created from the Access column types, then rows are
+ * inserted with batched prepared statements, committing every
+ * {@link ExportOptions#sinkCommitRows} rows.
+ */
+class JdbcSink {
+
+	private JdbcSink() {
+	}
+
+	/**
+	 * Copies one table over a new connection to {@code options.sink}.
+	 */
+	static TableExportStats exportTable(final Database db, final String tableName, final ExportOptions options)
+			throws IOException {
+		try {
+			final Connection connection = DriverManager.getConnection(options.sink);
+			try {
+				return exportTable(db.getTable(tableName), connection, options);
+			} finally {
+				connection.close();
+			}
+		} catch (final SQLException e) {
+			throw new IOException(String.format("Could not copy '%s' to %s", tableName, options.sink), e);
+		}
+	}
+
+	static TableExportStats exportTable(final Table table, final Connection connection, final ExportOptions options)
+			throws IOException, SQLException {
+		final long start = System.nanoTime();
+		final Cursor cursor = Driver.openCursor(table, options);
+		final List<Column> outputColumns = Driver.outputColumns(table, options);
+		final Column[] columns = outputColumns.toArray(new Column[outputColumns.size()]);
+		System.out.println(String.format("Copying '%s' to %s", table.getName(), options.sink));
+		if (!tableExists(connection, table.getName())) {
+			final Statement statement = connection.createStatement();
+			try {
+				statement.execute(createTable(table.getName(), columns));
+			} finally {
+				statement.close();
+			}
+		}
+
+		final boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		final long rows;
+		try {
+			final PreparedStatement insert = connection.prepareStatement(insert(table.getName(), columns));
+			try {
+				final BatchInsert batch = new BatchInsert(connection, insert, columns, options);
+				if (options.orderBy != null && !Driver.isOrderedBy(cursor, options.orderBy)) {
+					Driver.exportSorted(cursor, sortedColumns -> batch, options);
+				} else {
+					final RowReader reader = Driver.newRowReader(cursor, options);
+					while (reader.next()) {
+						batch.writeRecord(reader.values());
+					}
+				}
+				batch.finish();
+				rows = batch.rows;
+			} finally {
+				insert.close();
+			}
+		} catch (final SQLException | IOException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+
+		final TableExportStats stats = new TableExportStats(table.getName(), rows, System.nanoTime() - start);
+		System.out.println(String.format("%d rows copied from '%s' (%.0f rows/sec)", rows, table.getName(),
+				stats.rowsPerSecond()));
+		return stats;
+	}
+
+	/**
+	 * Inserts rows in batches of {@link ExportOptions#sinkBatchSize}, committing
+	 * every {@link ExportOptions#sinkCommitRows} rows. A record writer, so that
+	 * the sorted export can write an {@code --order-by} copy.
+	 */
+	private static final class BatchInsert implements RecordWriter {
+		private final Connection connection;
+		private final PreparedStatement insert;
+		private final int[] sqlTypes;
+		private final ExportOptions options;
+		private long rows;
+		private int batched;
+
+		BatchInsert(final Connection connection, final PreparedStatement insert, final Column[] columns,
+				final ExportOptions options) {
+			this.connection = connection;
+			this.insert = insert;
+			this.options = options;
+			this.sqlTypes = new int[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				sqlTypes[i] = sqlType(columns[i]);
+			}
+		}
+
+		@Override
+		public void writeHeader(final Column[] columns) {
+		}
+
+		@Override
+		public void writeRecord(final Object[] values) throws IOException {
+			try {
+				for (int i = 0; i < sqlTypes.length; i++) {
+					setValue(insert, i + 1, values[i], sqlTypes[i]);
+				}
+				insert.addBatch();
+				rows++;
+				if (++batched == options.sinkBatchSize) {
+					insert.executeBatch();
+					batched = 0;
+				}
+				if (rows % options.sinkCommitRows == 0) {
+					if (batched > 0) {
+						insert.executeBatch();
+						batched = 0;
+					}
+					connection.commit();
+				}
+			} catch (final SQLException e) {
+				throw new IOException(e);
+			}
+		}
+
+		void finish() throws SQLException {
+			if (batched > 0) {
+				insert.executeBatch();
+				batched = 0;
+			}
+			connection.commit();
+		}
+
+		@Override
+		public long getBytesWritten() {
+			return 0;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	static boolean tableExists(final Connection connection, final String tableName) throws SQLException {
+		final DatabaseMetaData metaData = connection.getMetaData();
+		for (final String name : new String[] { tableName, tableName.toUpperCase(), tableName.toLowerCase() }) {
+			final ResultSet tables = metaData.getTables(null, null, name, null);
+			try {
+				if (tables.next()) {
+					return true;
+				}
+			} finally {
+				tables.close();
+			}
+		}
+		return false;
+	}
+
+	static String createTable(final String tableName, final Column[] columns) {
+		final StringBuilder sql = new StringBuilder("CREATE TABLE ").append(quote(tableName)).append(" (");
+		for (int i = 0; i < columns.length; i++) {
+			sql.append(i == 0 ? "" : ", ").append(quote(columns[i].getName())).append(' ')
+					.append(columnType(columns[i]));
+		}
+		return sql.append(')').toString();
+	}
+
+	static String insert(final String tableName, final Column[] columns) {
+		final StringBuilder sql = new StringBuilder("INSERT INTO ").append(quote(tableName)).append(" (");
+		for (int i = 0; i < columns.length; i++) {
+			sql.append(i == 0 ? "" : ", ").append(quote(columns[i].getName()));
+		}
+		sql.append(") VALUES (");
+		for (int i = 0; i < columns.length; i++) {
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		return sql.append(')').toString();
+	}
+
+	static String quote(final String identifier) {
+		return '"' + identifier.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * @return the standard SQL type of the column.
+	 */
+	static String columnType(final Column column) {
+		switch (column.getType()) {
+		case BOOLEAN:
+			return "BOOLEAN";
+		case BYTE:
+		case INT:
+			return "SMALLINT";
+		case LONG:
+			return "INTEGER";
+		case BIG_INT:
+			return "BIGINT";
+		case FLOAT:
+			return "REAL";
+		case DOUBLE:
+			return "DOUBLE PRECISION";
+		case MONEY:
+			return "DECIMAL(19,4)";
+		case NUMERIC:
+			return String.format("DECIMAL(%d,%d)", column.getPrecision(), column.getScale());
+		case SHORT_DATE_TIME:
+			return "TIMESTAMP";
+		case TEXT:
+			return String.format("VARCHAR(%d)", Math.max(1, column.getLengthInUnits()));
+		case GUID:
+			return "VARCHAR(38)";
+		case BINARY:
+			return String.format("VARBINARY(%d)", Math.max(1, column.getLengthInUnits()));
+		case OLE:
+			return "BLOB";
+		default:
+			return "CLOB";
+		}
+	}
+
+	static int sqlType(final Column column) {
+		switch (column.getType()) {
+		case BOOLEAN:
+			return Types.BOOLEAN;
+		case BYTE:
+		case INT:
+			return Types.SMALLINT;
+		case LONG:
+			return Types.INTEGER;
+		case BIG_INT:
+			return Types.BIGINT;
+		case FLOAT:
+			return Types.REAL;
+		case DOUBLE:
+			return Types.DOUBLE;
+		case MONEY:
+		case NUMERIC:
+			return Types.DECIMAL;
+		case SHORT_DATE_TIME:
+			return Types.TIMESTAMP;
+		case TEXT:
+		case GUID:
+			return Types.VARCHAR;
+		case BINARY:
+			return Types.VARBINARY;
+		case OLE:
+			return Types.BLOB;
+		default:
+			return Types.CLOB;
+		}
+	}
+
+	static void setValue(final PreparedStatement statement, final int index, final Object value, final int sqlType)
+			throws SQLException {
+		if (value == null) {
+			statement.setNull(index, sqlType);
+		} else if (value instanceof Date) {
+			statement.setTimestamp(index, new Timestamp(((Date) value).getTime()));
+		} else if (value instanceof LocalDateTime) {
+			statement.setTimestamp(index, Timestamp.valueOf((LocalDateTime) value));
+		} else if (value instanceof byte[]) {
+			statement.setBytes(index, (byte[]) value);
+		} else if (value instanceof BigDecimal) {
+			statement.setBigDecimal(index, (BigDecimal) value);
+		} else if (value instanceof Byte) {
+			// BYTE runs from 0 to 255, which fits the SMALLINT column
+			statement.setShort(index, (short) ((Byte) value & 0xff));
+		} else if (value instanceof Number || value instanceof Boolean) {
+			statement.setObject(index, value);
+		} else {
+			statement.setString(index, value.toString());
+		}
+	}
+}
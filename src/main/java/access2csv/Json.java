@@ -0,0 +1,49 @@
+package access2csv;
+
+/**
+ * The little JSON the exporter writes by hand.
+ */
+final class Json {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private Json() {
+	}
+
+	/**
+	 * Appends the value as a quoted JSON string.
+	 */
+	static StringBuilder appendString(final StringBuilder out, final CharSequence value) {
+		out.append('"');
+		for (int i = 0, n = value.length(); i < n; i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+				} else {
+					out.append(c);
+				}
+			}
+		}
+		return out.append('"');
+	}
+
+	static String quote(final CharSequence value) {
+		return appendString(new StringBuilder(value.length() + 2), value).toString();
+	}
+}
@@ -0,0 +1,131 @@
+package access2csv;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.healthmarketscience.jackcess.Column;
+
+/**
+ * Writes rows as JSON Lines, one object per row keyed by column name. The
+ * keys are encoded once per table; values are written by the codec of their
+ * column, so numbers and booleans stay JSON numbers and booleans and nulls
+ * are JSON null. Output is always UTF-8, as JSON requires.
+ */
+class JsonLinesWriter extends ChannelOutput implements RecordWriter, ValueSink {
+	private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/** The key of each column with its separators: {@code {"name":} or {@code ,"name":}. */
+	private final byte[][] keys;
+	private final ValueCodec[] codecs;
+
+	JsonLinesWriter(final Column[] columns, final WritableByteChannel out, final ExportOptions options) {
+		super(out, StandardCharsets.UTF_8);
+		this.codecs = ValueCodecs.forColumns(Arrays.asList(columns), options);
+		this.keys = new byte[columns.length][];
+		for (int i = 0; i < columns.length; i++) {
+			keys[i] = ((i == 0 ? "{" : ",") + Json.quote(columns[i].getName()) + ":").getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Every object carries the column names, so no header line is written.
+	 */
+	@Override
+	public void writeHeader(final Column[] columns) {
+	}
+
+	@Override
+	public void writeRecord(final Object[] values) throws IOException {
+		if (keys.length == 0) {
+			putAscii('{');
+		}
+		for (int i = 0; i < keys.length; i++) {
+			putBytes(keys[i]);
+			if (values[i] == null) {
+				writeNull();
+			} else {
+				codecs[i].write(values[i], this);
+			}
+		}
+		putAscii('}');
+		putAscii('\n');
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return super.getBytesWritten();
+	}
+
+	@Override
+	public void writeNull() throws IOException {
+		putBytes(NULL);
+	}
+
+	@Override
+	public void writeText(final CharSequence value) throws IOException {
+		putAscii('"');
+		int start = 0;
+		for (int i = 0, n = value.length(); i < n; i++) {
+			final char c = value.charAt(i);
+			if (c < 0x20 || c == '"' || c == '\\') {
+				putChars(value, start, i);
+				putEscape(c);
+				start = i + 1;
+			}
+		}
+		putChars(value, start, value.length());
+		putAscii('"');
+	}
+
+	private void putEscape(final char c) throws IOException {
+		putAscii('\\');
+		switch (c) {
+		case '"':
+		case '\\':
+			putAscii(c);
+			break;
+		case '\n':
+			putAscii('n');
+			break;
+		case '\r':
+			putAscii('r');
+			break;
+		case '\t':
+			putAscii('t');
+			break;
+		default:
+			putAscii('u');
+			putAscii('0');
+			putAscii('0');
+			putAscii(HEX[c >> 4]);
+			putAscii(HEX[c & 0xf]);
+		}
+	}
+
+	@Override
+	public void writeSafeText(final CharSequence value) throws IOException {
+		putAscii('"');
+		putChars(value);
+		putAscii('"');
+	}
+
+	@Override
+	public void writeLong(final long value) throws IOException {
+		putLong(value);
+	}
+
+	@Override
+	public void writeNumber(final CharSequence value) throws IOException {
+		putChars(value);
+	}
+
+	@Override
+	public void writeBoolean(final boolean value) throws IOException {
+		putBytes(value ? TRUE : FALSE);
+	}
+}
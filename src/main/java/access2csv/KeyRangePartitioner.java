@@ -0,0 +1,133 @@
+package access2csv;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.Cursor;
+import com.healthmarketscience.jackcess.CursorBuilder;
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Index;
+import com.healthmarketscience.jackcess.Row;
+import com.healthmarketscience.jackcess.Table;
+
+/**
+ * Splits a table into contiguous ranges of a single-column integral primary
+ * key, so that each range can be scanned by its own index cursor.
+ */
+class KeyRangePartitioner {
+
+	static final EnumSet<DataType> INTEGRAL_KEY_TYPES = EnumSet.of(DataType.BYTE, DataType.INT, DataType.LONG,
+			DataType.BIG_INT);
+
+	/**
+	 * A half open key range {@code [start, end)}, closed at the end for the
+	 * last range of a table.
+	 */
+	static class KeyRange {
+		final int number;
+		final long start;
+		final long end;
+		final boolean endInclusive;
+
+		KeyRange(final int number, final long start, final long end, final boolean endInclusive) {
+			this.number = number;
+			this.start = start;
+			this.end = end;
+			this.endInclusive = endInclusive;
+		}
+
+		Cursor openCursor(final Table table) throws IOException {
+			final Index index = partitionIndex(table);
+			final DataType type = index.getColumns().get(0).getColumn().getType();
+			return table.newCursor().setIndex(index)
+					.setStartEntry(toKey(type, start)).setStartRowInclusive(true)
+					.setEndEntry(toKey(type, end)).setEndRowInclusive(endInclusive)
+					.toCursor();
+		}
+
+		@Override
+		public String toString() {
+			return "[" + start + ", " + end + (endInclusive ? "]" : ")");
+		}
+	}
+
+	/**
+	 * @return the primary key index of the table if it consists of a single
+	 *         integral column, otherwise null.
+	 */
+	static Index partitionIndex(final Table table) {
+		for (final Index index : table.getIndexes()) {
+			if (index.isPrimaryKey() && index.getColumnCount() == 1
+					&& INTEGRAL_KEY_TYPES.contains(index.getColumns().get(0).getColumn().getType())) {
+				return index;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Splits the key space between the smallest and largest key into at most
+	 * {@code partitions} equally wide ranges.
+	 *
+	 * @return the ranges in key order, or null if the table has no suitable
+	 *         key to partition on.
+	 */
+	static List<KeyRange> partition(final Table table, final int partitions) throws IOException {
+		final Index index = partitionIndex(table);
+		if (index == null) {
+			return null;
+		}
+		final List<KeyRange> ranges = new ArrayList<KeyRange>();
+		final Column keyColumn = index.getColumns().get(0).getColumn();
+		final Cursor cursor = CursorBuilder.createCursor(index);
+		final Row first = cursor.getNextRow();
+		if (first == null) {
+			return ranges;
+		}
+		cursor.afterLast();
+		final Row last = cursor.getPreviousRow();
+		final long min = keyValue(keyColumn.getRowValue(first));
+		final long max = keyValue(keyColumn.getRowValue(last));
+
+		final BigInteger span = BigInteger.valueOf(max).subtract(BigInteger.valueOf(min)).add(BigInteger.ONE);
+		final BigInteger count = BigInteger.valueOf(Math.max(1, partitions)).min(span);
+		final BigInteger step = span.add(count).subtract(BigInteger.ONE).divide(count);
+		BigInteger start = BigInteger.valueOf(min);
+		for (int i = 0; start.compareTo(BigInteger.valueOf(max)) <= 0; i++) {
+			final BigInteger end = start.add(step);
+			final boolean lastRange = end.compareTo(BigInteger.valueOf(max)) > 0;
+			ranges.add(new KeyRange(i, start.longValue(), lastRange ? max : end.longValue(), lastRange));
+			start = end;
+		}
+		return ranges;
+	}
+
+	/**
+	 * @return the key as a long. BYTE keys are unsigned in Access, and in the
+	 *         order of the index, but read as signed Java bytes.
+	 */
+	static long keyValue(final Object value) {
+		return value instanceof Byte ? Byte.toUnsignedLong((Byte) value) : ((Number) value).longValue();
+	}
+
+	/**
+	 * @return the key of a column type for a value of {@link #keyValue(Object)}.
+	 */
+	static Object toKey(final DataType type, final long value) {
+		switch (type) {
+		case BYTE:
+			// 128 to 255 back to the signed byte holding them
+			return (byte) value;
+		case INT:
+			return (short) value;
+		case LONG:
+			return (int) value;
+		default:
+			return value;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package access2csv;
+
+/**
+ * Open addressing hash map from long keys to long values, kept in primitive
+ * arrays at 17 bytes per slot. Each entry can be marked once it has been
+ * matched, which is all a snapshot diff needs instead of removal.
+ */
+final class LongLongMap {
+	private static final byte FREE = 0;
+	private static final byte USED = 1;
+	private static final byte MARKED = 2;
+	private static final double LOAD_FACTOR = 0.75;
+
+	private long[] keys;
+	private long[] values;
+	private byte[] states;
+	private int mask;
+	private int size;
+
+	LongLongMap(final int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	private static int capacityFor(final int size) {
+		final long needed = (long) Math.ceil(Math.max(size, 1) / LOAD_FACTOR);
+		if (needed > 1 << 30) {
+			throw new IllegalArgumentException("Too many entries for a hash map: " + size);
+		}
+		return Math.max(16, Integer.highestOneBit((int) needed - 1) << 1);
+	}
+
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		values = new long[capacity];
+		states = new byte[capacity];
+		mask = capacity - 1;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Associates the value with the key, replacing and unmarking any previous
+	 * entry.
+	 */
+	void put(final long key, final long value) {
+		if (size + 1 > keys.length * LOAD_FACTOR) {
+			grow();
+		}
+		int slot = (int) mix(key) & mask;
+		while (states[slot] != FREE) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				states[slot] = USED;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		states[slot] = USED;
+		size++;
+	}
+
+	/**
+	 * @return the slot holding the key, or -1 if the key is absent.
+	 */
+	int slot(final long key) {
+		int slot = (int) mix(key) & mask;
+		while (states[slot] != FREE) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	long value(final int slot) {
+		return values[slot];
+	}
+
+	boolean isMarked(final int slot) {
+		return states[slot] == MARKED;
+	}
+
+	void mark(final int slot) {
+		states[slot] = MARKED;
+	}
+
+	private void grow() {
+		final long[] oldKeys = keys;
+		final long[] oldValues = values;
+		final byte[] oldStates = states;
+		allocate(capacityFor(oldKeys.length));
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldStates[i] != FREE) {
+				put(oldKeys[i], oldValues[i]);
+				if (oldStates[i] == MARKED) {
+					mark(slot(oldKeys[i]));
+				}
+			}
+		}
+	}
+
+	/**
+	 * The finalizer of MurmurHash3, spreading sequential keys over the table.
+	 */
+	static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb93fe53a87ebL;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,168 @@
+package access2csv;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads CSV records straight from a memory mapped file. Delimiters, quotes
+ * and line breaks are found on the raw bytes and only the field values are
+ * decoded, so no line is ever decoded or copied as a whole. Files larger than
+ * a window are mapped one window at a time; a record crossing the end of a
+ * window is read again from a window starting at the record.
+ * <p>
+ * Parses like opencsv's RFC4180 parser behind a line reader: fields starting
+ * with a quote run to the closing quote with doubled quotes unescaped, a
+ * carriage return before a line feed or the end of the file is dropped, and
+ * an empty line is a record of one empty field. The charset must encode ASCII
+ * as single bytes, see {@link #supports(char, Charset)}.
+ */
+final class MappedCsvReader implements Closeable {
+	static final long WINDOW_SIZE = 1L << 30;
+
+	private static final byte QUOTE = '"';
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long size;
+	private final byte delimiter;
+	private final Charset charset;
+	private final List<String> fields = new ArrayList<String>();
+	private long windowSize;
+	private MappedByteBuffer window;
+	private long base;
+	private int position;
+	private byte[] field = new byte[256];
+	private int length;
+
+	MappedCsvReader(final File inputFile, final char delimiter, final Charset charset) throws IOException {
+		this(inputFile, delimiter, charset, WINDOW_SIZE);
+	}
+
+	MappedCsvReader(final File inputFile, final char delimiter, final Charset charset, final long windowSize)
+			throws IOException {
+		this.file = new RandomAccessFile(inputFile, "r");
+		this.channel = file.getChannel();
+		this.size = channel.size();
+		this.delimiter = (byte) delimiter;
+		this.charset = charset;
+		this.windowSize = windowSize;
+		map(0);
+	}
+
+	/**
+	 * @return whether the delimiter and the quote, line feed and carriage
+	 *         return characters are single ASCII bytes in the charset.
+	 */
+	static boolean supports(final char delimiter, final Charset charset) {
+		final String special = new String(new char[] { delimiter, '"', '\r', '\n' });
+		return delimiter < 0x80 && Arrays.equals(special.getBytes(StandardCharsets.US_ASCII), special.getBytes(charset));
+	}
+
+	/**
+	 * @return the fields of the next record, or null at the end of the file.
+	 */
+	String[] readNext() throws IOException {
+		while (base + position < size) {
+			final int start = position;
+			if (readRecord()) {
+				return fields.toArray(new String[fields.size()]);
+			}
+			if (start == 0) {
+				// the record is larger than a window
+				windowSize *= 2;
+			}
+			map(base + start);
+		}
+		return null;
+	}
+
+	/**
+	 * @return false when the record runs past the end of the window.
+	 */
+	private boolean readRecord() {
+		final MappedByteBuffer window = this.window;
+		final int limit = window.limit();
+		final boolean last = base + limit == size;
+		fields.clear();
+		int p = position;
+		while (true) {
+			length = 0;
+			if (p < limit && window.get(p) == QUOTE) {
+				p++;
+				while (true) {
+					if (p >= limit) {
+						if (last) {
+							break;
+						}
+						return false;
+					}
+					final byte b = window.get(p++);
+					if (b == QUOTE) {
+						if (p < limit && window.get(p) == QUOTE) {
+							append(QUOTE);
+							p++;
+						} else if (p < limit || last) {
+							break;
+						} else {
+							return false;
+						}
+					} else if (b == CR && (p >= limit || window.get(p) == LF)) {
+						if (p >= limit && !last) {
+							return false;
+						}
+					} else {
+						append(b);
+					}
+				}
+			}
+			byte b = 0;
+			while (p < limit && (b = window.get(p)) != delimiter && b != LF) {
+				append(b);
+				p++;
+			}
+			if (p >= limit && !last) {
+				return false;
+			}
+			final boolean end = p >= limit || b == LF;
+			if (end && length > 0 && field[length - 1] == CR && window.get(p - 1) == CR) {
+				length--;
+			}
+			fields.add(new String(field, 0, length, charset));
+			if (end) {
+				position = Math.min(p + 1, limit);
+				return true;
+			}
+			p++;
+		}
+	}
+
+	private void append(final byte b) {
+		if (length == field.length) {
+			field = Arrays.copyOf(field, length * 2);
+		}
+		field[length++] = b;
+	}
+
+	private void map(final long offset) throws IOException {
+		base = offset;
+		position = 0;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, size - offset));
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		file.close();
+	}
+}
@@ -0,0 +1,172 @@
+package access2csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Database;
+
+/**
+ * Imports several CSV files into one database which is opened once. Pool
+ * threads read the files ahead, in file order, into blocks of records, while
+ * the calling thread, which owns the database, imports the files one after
+ * the other through the bulk import. Each file keeps its own schema file,
+ * table and rejects file. At most {@link #BLOCKS_AHEAD} blocks of
+ * {@link #BLOCK_SIZE} records are buffered per file, and only as many files
+ * as there are reading threads are read at a time.
+ */
+class MultiFileImport {
+	static final int BLOCK_SIZE = 1024;
+	static final int BLOCKS_AHEAD = 16;
+
+	/**
+	 * Finds the schema of an input file.
+	 */
+	interface SchemaLookup {
+		/**
+		 * @return the schema of the file, or null for none.
+		 */
+		List<ImportSchemaFile> schemaFor(File inputFile) throws IOException;
+	}
+
+	private MultiFileImport() {
+	}
+
+	static void importFiles(final List<File> inputFiles, final File dbFile, final String delimiter,
+			final DataType defaultType, final SchemaLookup schemas, final ImportOptions options) throws IOException {
+		final long start = System.nanoTime();
+		final ImportOptions fileOptions = options.copy();
+		fileOptions.bulk = true;
+		fileOptions.threads = 1;
+		if (options.rejectsFile != null) {
+			System.out.println("--rejects is ignored with several input files, rejected rows are written next to each file");
+			fileOptions.rejectsFile = null;
+		}
+		// a longer delimiter is read by ImportUtil, which cannot be read ahead
+		final boolean readAhead = delimiter.length() <= 1;
+		final char delimiterChar = delimiter.isEmpty() ? ',' : delimiter.charAt(0);
+
+		final Database db = BulkImporter.open(dbFile);
+		final ExecutorService readers = readAhead ? Executors.newFixedThreadPool(Math.max(1, options.threads))
+				: null;
+		try {
+			final List<QueuedRecords> queued = new ArrayList<QueuedRecords>();
+			if (readAhead) {
+				for (final File inputFile : inputFiles) {
+					final QueuedRecords records = new QueuedRecords(inputFile);
+					queued.add(records);
+					readers.submit(() -> records.fill(delimiterChar));
+				}
+			}
+			for (int i = 0; i < inputFiles.size(); i++) {
+				final File inputFile = inputFiles.get(i);
+				System.out.println(String.format("InputFile %d/%d: %s", i + 1, inputFiles.size(), inputFile));
+				Driver.importCSV(inputFile, db, delimiter, defaultType, schemas.schemaFor(inputFile), fileOptions,
+						readAhead ? queued.get(i) : null);
+			}
+			db.flush();
+		} finally {
+			if (readers != null) {
+				readers.shutdownNow();
+			}
+			db.close();
+		}
+		System.out.println(String.format("%d files imported into %s in %.1f s", inputFiles.size(), dbFile.getName(),
+				(System.nanoTime() - start) / 1e9));
+	}
+
+	/**
+	 * The records of a file read by a pool thread and handed to the importing
+	 * thread in blocks.
+	 */
+	static final class QueuedRecords implements BulkImporter.Records {
+		private static final String[][] END = new String[0][];
+
+		private final File file;
+		private final BlockingQueue<String[][]> blocks = new ArrayBlockingQueue<String[][]>(BLOCKS_AHEAD);
+		private volatile IOException failure;
+		private String[][] block = new String[0][];
+		private int next;
+
+		QueuedRecords(final File file) {
+			this.file = file;
+		}
+
+		/**
+		 * Reads the file into blocks. Reading thread side.
+		 */
+		void fill(final char delimiter) {
+			try {
+				final BulkImporter.Records records = BulkImporter.Records.open(file, delimiter, true);
+				try {
+					String[][] block = new String[BLOCK_SIZE][];
+					int length = 0;
+					String[] record;
+					while ((record = records.readNext()) != null) {
+						block[length++] = record;
+						if (length == BLOCK_SIZE) {
+							blocks.put(block);
+							block = new String[BLOCK_SIZE][];
+							length = 0;
+						}
+					}
+					if (length > 0) {
+						blocks.put(Arrays.copyOf(block, length));
+					}
+				} finally {
+					records.close();
+				}
+			} catch (final IOException e) {
+				failure = e;
+			} catch (final RuntimeException e) {
+				failure = new IOException("Could not read " + file, e);
+			} catch (final InterruptedException e) {
+				// the import was aborted
+				return;
+			}
+			try {
+				blocks.put(END);
+			} catch (final InterruptedException e) {
+				// the import was aborted
+			}
+		}
+
+		@Override
+		public String[] readNext() throws IOException {
+			while (next == block.length) {
+				if (block == END) {
+					return null;
+				}
+				try {
+					block = blocks.take();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for the records of " + file);
+				}
+				next = 0;
+				if (block == END && failure != null) {
+					throw failure;
+				}
+			}
+			return block[next++];
+		}
+
+		@Override
+		public Reader remaining() {
+			return null;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
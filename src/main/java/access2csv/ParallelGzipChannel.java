@@ -0,0 +1,201 @@
+package access2csv;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip compresses everything written to it in independent blocks on a
+ * thread pool, in the manner of pigz. Each block becomes a complete gzip
+ * member and the members are written in order, which any gzip reader
+ * decompresses as one stream.
+ */
+class ParallelGzipChannel implements WritableByteChannel {
+	static final int BLOCK_SIZE = 1 << 20;
+
+	private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+	private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal
+			.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+	private static ThreadPoolExecutor pool;
+
+	private final WritableByteChannel out;
+	private final ExecutorService executor;
+	private final int maxInFlight;
+	private final Deque<Future<byte[]>> inFlight = new ArrayDeque<Future<byte[]>>();
+	private final long start = System.nanoTime();
+	private final int blockSize;
+	private byte[] block;
+	private int blockLength;
+	private boolean membersWritten;
+	private long bytesIn;
+	private long bytesOut;
+	private long elapsedNanos;
+	private boolean open = true;
+
+	ParallelGzipChannel(final WritableByteChannel out, final int threads) {
+		this(out, threads, BLOCK_SIZE);
+	}
+
+	ParallelGzipChannel(final WritableByteChannel out, final int threads, final int blockSize) {
+		this.out = out;
+		this.executor = pool(threads);
+		this.maxInFlight = 2 * Math.max(1, threads);
+		this.blockSize = blockSize;
+		this.block = new byte[blockSize];
+	}
+
+	/**
+	 * The compression pool shared by every channel, grown when a caller asks
+	 * for more threads than it has. A channel never has more than twice its
+	 * own thread count of blocks queued, so a smaller count still bounds its
+	 * share of the pool. The threads are daemons so that they never keep the
+	 * JVM alive.
+	 */
+	static synchronized ExecutorService pool(final int threads) {
+		final int size = Math.max(1, threads);
+		if (pool == null) {
+			pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(size, runnable -> {
+				final Thread thread = new Thread(runnable, "gzip-compressor");
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else if (size > pool.getMaximumPoolSize()) {
+			pool.setMaximumPoolSize(size);
+			pool.setCorePoolSize(size);
+		}
+		return pool;
+	}
+
+	@Override
+	public int write(final ByteBuffer src) throws IOException {
+		final int written = src.remaining();
+		while (src.hasRemaining()) {
+			final int length = Math.min(src.remaining(), block.length - blockLength);
+			src.get(block, blockLength, length);
+			blockLength += length;
+			if (blockLength == block.length) {
+				submitBlock();
+			}
+		}
+		bytesIn += written;
+		return written;
+	}
+
+	private void submitBlock() throws IOException {
+		final byte[] data = block;
+		final int length = blockLength;
+		inFlight.add(executor.submit(() -> compress(data, length)));
+		block = new byte[blockSize];
+		blockLength = 0;
+		while (inFlight.size() >= maxInFlight) {
+			writeMember(inFlight.poll());
+		}
+	}
+
+	static byte[] compress(final byte[] data, final int length) {
+		final Deflater deflater = DEFLATERS.get();
+		deflater.reset();
+		deflater.setInput(data, 0, length);
+		deflater.finish();
+		byte[] member = new byte[HEADER.length + length / 2 + 64];
+		System.arraycopy(HEADER, 0, member, 0, HEADER.length);
+		int size = HEADER.length;
+		while (!deflater.finished()) {
+			if (size == member.length) {
+				member = Arrays.copyOf(member, member.length * 2);
+			}
+			size += deflater.deflate(member, size, member.length - size);
+		}
+		final CRC32 crc = new CRC32();
+		crc.update(data, 0, length);
+		if (size + 8 > member.length) {
+			member = Arrays.copyOf(member, size + 8);
+		}
+		writeIntLE(member, size, (int) crc.getValue());
+		writeIntLE(member, size + 4, length);
+		return size + 8 == member.length ? member : Arrays.copyOf(member, size + 8);
+	}
+
+	private static void writeIntLE(final byte[] target, final int offset, final int value) {
+		target[offset] = (byte) value;
+		target[offset + 1] = (byte) (value >>> 8);
+		target[offset + 2] = (byte) (value >>> 16);
+		target[offset + 3] = (byte) (value >>> 24);
+	}
+
+	private void writeMember(final Future<byte[]> future) throws IOException {
+		final byte[] member;
+		try {
+			member = future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while compressing");
+		} catch (final ExecutionException e) {
+			throw new IOException("Compression failed", e.getCause());
+		}
+		final ByteBuffer buffer = ByteBuffer.wrap(member);
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		bytesOut += member.length;
+		membersWritten = true;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * Compresses the last block, writes every pending member and closes the
+	 * underlying channel. An empty stream still gets one empty member so that
+	 * the output is a valid gzip file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!open) {
+			return;
+		}
+		open = false;
+		try {
+			if (blockLength > 0 || (inFlight.isEmpty() && !membersWritten)) {
+				submitBlock();
+			}
+			while (!inFlight.isEmpty()) {
+				writeMember(inFlight.poll());
+			}
+		} finally {
+			for (final Future<byte[]> future : inFlight) {
+				future.cancel(true);
+			}
+			elapsedNanos = System.nanoTime() - start;
+			out.close();
+		}
+	}
+
+	long getBytesIn() {
+		return bytesIn;
+	}
+
+	long getBytesOut() {
+		return bytesOut;
+	}
+
+	String summary() {
+		final double megabytes = bytesIn / (1024d * 1024d);
+		return String.format("gzip: %.1f MB compressed to %.1f MB (ratio %.1f:1, %.1f MB/s)", megabytes,
+				bytesOut / (1024d * 1024d), bytesOut == 0 ? 0 : bytesIn / (double) bytesOut,
+				elapsedNanos <= 0 ? 0 : megabytes / TableExportStats.seconds(elapsedNanos));
+	}
+}
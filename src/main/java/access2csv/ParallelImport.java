@@ -0,0 +1,213 @@
+package access2csv;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.healthmarketscience.jackcess.util.ImportFilter;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.RFC4180ParserBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+
+/**
+ * Parses the rows of a bulk import on several threads. A reader thread cuts
+ * the input into chunks of whole records, pool threads parse and check the
+ * chunks, and the calling thread, which owns the database, takes the parsed
+ * chunks in file order and hands their rows to a {@link BulkImporter.RowBatch}.
+ * At most two chunks per parsing thread are in flight.
+ * <p>
+ * Rows of a {@link ValidatingImportFilter} are checked on the pool threads
+ * and rejected in order on the calling thread; any other filter sees its
+ * rows in order on the calling thread.
+ */
+class ParallelImport {
+	static final int CHUNK_SIZE = 1 << 20;
+
+	private static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+
+	/**
+	 * Imports the records left in the reader.
+	 *
+	 * @param textual
+	 *            whether each column is textual; empty values of the others
+	 *            are imported as null
+	 * @param chunkSize
+	 *            the characters per chunk, usually {@link #CHUNK_SIZE}
+	 */
+	static void load(final Reader in, final char delimiter, final boolean[] textual, final ImportFilter filter,
+			final BulkImporter.RowBatch batch, final int threads, final int chunkSize) throws IOException {
+		final ValidatingImportFilter validating = filter instanceof ValidatingImportFilter
+				? (ValidatingImportFilter) filter
+				: null;
+		final ExecutorService parsers = Executors.newFixedThreadPool(threads);
+		final BlockingQueue<Future<Chunk>> chunks = new ArrayBlockingQueue<Future<Chunk>>(threads * 2);
+		final Thread reader = new Thread(() -> {
+			try {
+				final RecordChunker chunker = new RecordChunker(in, chunkSize);
+				String text;
+				while ((text = chunker.next()) != null) {
+					final String chunk = text;
+					chunks.put(parsers.submit(() -> Chunk.parse(chunk, delimiter, textual, validating)));
+				}
+				chunks.put(END);
+			} catch (final InterruptedException e) {
+				// the import was aborted
+			} catch (final IOException | RuntimeException e) {
+				final CompletableFuture<Chunk> failed = new CompletableFuture<Chunk>();
+				failed.completeExceptionally(e);
+				try {
+					chunks.put(failed);
+				} catch (final InterruptedException aborted) {
+					// the import was aborted
+				}
+			}
+		}, "access2csv-import-reader");
+		reader.setDaemon(true);
+		reader.start();
+		try {
+			int rownum = 0;
+			Future<Chunk> future;
+			while ((future = chunks.take()) != END) {
+				final Chunk chunk = future.get();
+				for (int i = 0; i < chunk.rows.size(); i++) {
+					final Object[] row = chunk.rows.get(i);
+					rownum++;
+					if (validating != null) {
+						if (validating.accept(rownum, row, chunk.errors[i])) {
+							batch.add(row);
+						}
+					} else {
+						final Object[] filtered = filter.filterRow(row);
+						if (filtered != null) {
+							batch.add(filtered);
+						}
+					}
+				}
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for parsed rows");
+		} catch (final ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		} catch (final SQLException e) {
+			throw new IOException(e);
+		} finally {
+			reader.interrupt();
+			parsers.shutdownNow();
+		}
+	}
+
+	/**
+	 * The parsed rows of a chunk and, for a validating filter, their errors.
+	 */
+	static final class Chunk {
+		final List<Object[]> rows;
+		final RowDataImportError[] errors;
+
+		private Chunk(final List<Object[]> rows, final RowDataImportError[] errors) {
+			this.rows = rows;
+			this.errors = errors;
+		}
+
+		static Chunk parse(final String text, final char delimiter, final boolean[] textual,
+				final ValidatingImportFilter validating) throws IOException {
+			final CSVReader reader = new CSVReaderBuilder(new StringReader(text))
+					.withCSVParser(new RFC4180ParserBuilder().withSeparator(delimiter).build()).build();
+			final List<Object[]> rows = new ArrayList<Object[]>();
+			try {
+				String[] line;
+				while ((line = reader.readNext()) != null) {
+					rows.add(BulkImporter.toRow(line, textual));
+				}
+			} catch (final CsvValidationException e) {
+				throw new IOException(e);
+			}
+			RowDataImportError[] errors = null;
+			if (validating != null) {
+				errors = new RowDataImportError[rows.size()];
+				for (int i = 0; i < errors.length; i++) {
+					errors[i] = validating.validate(rows.get(i));
+				}
+			}
+			return new Chunk(rows, errors);
+		}
+	}
+
+	/**
+	 * Cuts text into chunks of whole CSV records: each chunk but the last ends
+	 * at a line break outside quotes, so quoted line breaks never split a
+	 * record. A doubled quote flips the quote state twice and needs no special
+	 * case.
+	 */
+	static final class RecordChunker {
+		private final Reader in;
+		private final int chunkSize;
+		private char[] buffer;
+		private int length;
+		private int scanned;
+		private int boundary;
+		private boolean quoted;
+		private boolean eof;
+
+		RecordChunker(final Reader in, final int chunkSize) {
+			this.in = in;
+			this.chunkSize = chunkSize;
+			this.buffer = new char[chunkSize * 2];
+		}
+
+		/**
+		 * @return the next chunk, or null at the end of the input.
+		 */
+		String next() throws IOException {
+			while (!eof && (length < chunkSize || boundary == 0)) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				final int read = in.read(buffer, length, buffer.length - length);
+				if (read < 0) {
+					eof = true;
+				} else {
+					length += read;
+					scan();
+				}
+			}
+			final int end = eof ? length : boundary;
+			if (end == 0) {
+				return null;
+			}
+			final String chunk = new String(buffer, 0, end);
+			System.arraycopy(buffer, end, buffer, 0, length - end);
+			length -= end;
+			scanned -= end;
+			boundary = 0;
+			return chunk;
+		}
+
+		private void scan() {
+			for (; scanned < length; scanned++) {
+				final char c = buffer[scanned];
+				if (c == '"') {
+					quoted = !quoted;
+				} else if (c == '\n' && !quoted) {
+					boundary = scanned + 1;
+				}
+			}
+		}
+	}
+
+	private ParallelImport() {
+	}
+}
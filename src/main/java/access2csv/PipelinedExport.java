@@ -0,0 +1,191 @@
+package access2csv;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports one table in three stages which run concurrently: a decode thread
+ * reads rows into a {@link RowRing}, the calling thread formats them into
+ * byte chunks, and a writer thread flushes the chunks to the output channel.
+ * Both hand-offs are bounded, so at most {@link #ROW_SLOTS} rows and
+ * {@link #CHUNKS} chunks are in flight.
+ */
+class PipelinedExport {
+	static final int ROW_SLOTS = 4096;
+	static final int CHUNKS = 4;
+	static final int CHUNK_SIZE = ChannelOutput.DEFAULT_BUFFER_SIZE;
+
+	static int export(final RowReader reader, final WritableByteChannel out, final ExportOptions options)
+			throws IOException {
+		final RowRing ring = new RowRing(ROW_SLOTS, reader.getColumns().length);
+		final ChunkPipe pipe = new ChunkPipe(out);
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		final List<Future<Void>> stages = new ArrayList<Future<Void>>();
+		try {
+			stages.add(executor.submit(() -> {
+				try {
+					while (reader.next(ring.claim())) {
+						ring.publish();
+					}
+					ring.finish();
+				} catch (final Throwable e) {
+					ring.abort(e);
+					throw e;
+				}
+				return null;
+			}));
+			stages.add(executor.submit(() -> {
+				try {
+					pipe.drain();
+				} catch (final Throwable e) {
+					pipe.abort(e);
+					ring.abort(e);
+					throw e;
+				}
+				return null;
+			}));
+
+			int rows = 0;
+			final RecordWriter writer = Driver.newRecordWriter(reader.getColumns(), pipe, options);
+			try {
+				if (options.withHeader) {
+					writer.writeHeader(reader.getColumns());
+				}
+				Object[] row;
+				while ((row = ring.take()) != null) {
+					writer.writeRecord(row);
+					ring.release();
+					rows++;
+				}
+				writer.close();
+			} catch (final IOException | RuntimeException e) {
+				ring.abort(e);
+				pipe.abort(e);
+				try {
+					writer.close();
+				} catch (final IOException suppressed) {
+					e.addSuppressed(suppressed);
+				}
+				throw e;
+			}
+			Driver.awaitAll(stages, new ArrayList<Object>());
+			return rows;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Copies everything written to it into pooled chunks which are handed to
+	 * the writer thread in order.
+	 */
+	static final class ChunkPipe implements WritableByteChannel {
+		private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+		private final WritableByteChannel out;
+		private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<ByteBuffer>(CHUNKS);
+		private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<ByteBuffer>(CHUNKS + 1);
+		private volatile Throwable failure;
+		private boolean open = true;
+
+		ChunkPipe(final WritableByteChannel out) {
+			this.out = out;
+			for (int i = 0; i < CHUNKS; i++) {
+				free.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+			}
+		}
+
+		@Override
+		public int write(final ByteBuffer src) throws IOException {
+			final int written = src.remaining();
+			while (src.hasRemaining()) {
+				final ByteBuffer chunk = poll(free);
+				chunk.clear();
+				final int length = Math.min(chunk.remaining(), src.remaining());
+				final ByteBuffer slice = src.duplicate();
+				slice.limit(slice.position() + length);
+				chunk.put(slice);
+				src.position(src.position() + length);
+				chunk.flip();
+				offer(chunk);
+			}
+			return written;
+		}
+
+		/**
+		 * Writes chunks to the channel until the pipe is closed, then closes the
+		 * channel. Writer thread side.
+		 */
+		void drain() throws IOException {
+			try {
+				ByteBuffer chunk;
+				while ((chunk = poll(full)) != END) {
+					while (chunk.hasRemaining()) {
+						out.write(chunk);
+					}
+					free.add(chunk);
+				}
+			} finally {
+				out.close();
+			}
+		}
+
+		void abort(final Throwable cause) {
+			failure = cause;
+		}
+
+		private ByteBuffer poll(final BlockingQueue<ByteBuffer> queue) throws IOException {
+			try {
+				ByteBuffer chunk;
+				while ((chunk = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+					if (failure != null) {
+						throw new IOException("Pipeline aborted", failure);
+					}
+				}
+				return chunk;
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for an output chunk");
+			}
+		}
+
+		private void offer(final ByteBuffer chunk) throws IOException {
+			try {
+				while (!full.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+					if (failure != null) {
+						throw new IOException("Pipeline aborted", failure);
+					}
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while handing over an output chunk");
+			}
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		/**
+		 * Signals the writer thread that no more chunks follow.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (open) {
+				open = false;
+				offer(END);
+			}
+		}
+	}
+}
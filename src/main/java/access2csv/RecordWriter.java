@@ -0,0 +1,22 @@
+package access2csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import com.healthmarketscience.jackcess.Column;
+
+/**
+ * Writes the rows of one table in an output format.
+ */
+interface RecordWriter extends Closeable {
+
+	void writeHeader(Column[] columns) throws IOException;
+
+	/**
+	 * Writes one row, with values in the order of the columns the writer was
+	 * created for.
+	 */
+	void writeRecord(Object[] values) throws IOException;
+
+	long getBytesWritten();
+}
@@ -0,0 +1,154 @@
+package access2csv;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Collects the rows rejected by an import. Rejected rows are handed to a
+ * background thread through a bounded queue and written to a CSV file of
+ * row number, column, error and the row's values; the file is only created
+ * once a row is rejected. Only the first errors are printed to the console,
+ * errors are counted per column, and the import is aborted once more than
+ * {@link ImportOptions#maxErrors} rows were rejected.
+ */
+class RejectSink implements Closeable {
+	static final int QUEUE_CAPACITY = 1024;
+
+	private static final Object[] END = new Object[0];
+
+	private final File file;
+	private final long maxErrors;
+	private final int consoleErrors;
+	private final Map<String, long[]> columnErrors = new LinkedHashMap<String, long[]>();
+	private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<Object[]>(QUEUE_CAPACITY);
+	private Thread writer;
+	private volatile IOException failure;
+	private long errors;
+
+	RejectSink(final File file, final ImportOptions options) {
+		this.file = file;
+		this.maxErrors = options.maxErrors;
+		this.consoleErrors = options.consoleErrors;
+	}
+
+	/**
+	 * Records a rejected row.
+	 *
+	 * @throws IOException
+	 *             when the row exceeds the error limit, or writing rejects
+	 *             failed
+	 */
+	void reject(final int rowNum, final Object[] row, final RowDataImportError err) throws IOException {
+		errors++;
+		final long[] count = columnErrors.get(err.ColumnName);
+		if (count == null) {
+			columnErrors.put(err.ColumnName, new long[] { 1 });
+		} else {
+			count[0]++;
+		}
+		if (errors <= consoleErrors) {
+			err.RowNum = rowNum;
+			err.RowsAsCsv = Arrays.toString(row);
+			err.printErrorsToConsole();
+			if (errors == consoleErrors) {
+				System.out.println("Further errors are only written to " + file);
+			}
+		}
+		if (file != null) {
+			enqueue(new Object[] { rowNum, err.ColumnName, err.ErrorMessage, row });
+		}
+		if (maxErrors >= 0 && errors > maxErrors) {
+			throw new IOException(String.format("Import aborted after %d rejected rows, more than --max-errors %d",
+					errors, maxErrors));
+		}
+	}
+
+	long getErrors() {
+		return errors;
+	}
+
+	private void enqueue(final Object[] reject) throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+		if (writer == null) {
+			writer = new Thread(this::write, "access2csv-rejects");
+			writer.setDaemon(true);
+			writer.start();
+		}
+		try {
+			queue.put(reject);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while writing rejects");
+		}
+	}
+
+	private void write() {
+		try {
+			final CsvChannelWriter out = new CsvChannelWriter(Driver.openOutputChannel(file), StandardCharsets.UTF_8,
+					false);
+			try {
+				out.writeNext(new String[] { "row", "column", "error" });
+				Object[] reject;
+				while ((reject = queue.take()) != END) {
+					out.writeLong((Integer) reject[0]);
+					out.writeText((String) reject[1]);
+					out.writeText((String) reject[2]);
+					for (final Object value : (Object[]) reject[3]) {
+						if (value == null) {
+							out.writeNull();
+						} else {
+							out.writeText(value.toString());
+						}
+					}
+					out.endRecord();
+				}
+			} finally {
+				out.close();
+			}
+		} catch (final IOException e) {
+			failure = e;
+		} catch (final InterruptedException e) {
+			failure = new InterruptedIOException("Interrupted while writing rejects");
+		} finally {
+			// unblock a producer waiting on a full queue
+			queue.clear();
+		}
+	}
+
+	/**
+	 * Waits for the rejects to be written and prints the error counts.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (writer != null) {
+			try {
+				while (writer.isAlive() && !queue.offer(END)) {
+					Thread.sleep(1);
+				}
+				writer.join();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while writing rejects");
+			}
+		}
+		if (errors > 0) {
+			System.out.println(String.format("%d rows rejected%s", errors, file == null ? "" : ", see " + file));
+			for (final Map.Entry<String, long[]> entry : columnErrors.entrySet()) {
+				System.out.println(String.format("  %s: %d", entry.getKey(), entry.getValue()[0]));
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
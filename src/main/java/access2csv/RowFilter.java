@@ -0,0 +1,457 @@
+package access2csv;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.Cursor;
+import com.healthmarketscience.jackcess.CursorBuilder;
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Index;
+import com.healthmarketscience.jackcess.Table;
+import com.healthmarketscience.jackcess.impl.IndexData;
+
+/**
+ * A row predicate parsed from a {@code --where} expression: comparisons of a
+ * column with literals, joined by {@code AND}.
+ *
+ * <pre>
+ * Amount &gt;= 100 AND Created BETWEEN '2020-01-01' AND '2020-12-31T23:59:59'
+ * Status IN ('open', 'held') AND [Customer Id] = 42
+ * </pre>
+ *
+ * Supported operators are {@code = <> != < <= > >=}, {@code IN (...)} and
+ * {@code BETWEEN ... AND ...}. Text compares ignoring case, as Access does,
+ * and a null value never matches. When an ascending index starts with a
+ * constrained column, {@link #openCursor(Table)} scans only the matching
+ * range of that index instead of the whole table.
+ */
+class RowFilter {
+
+	private enum Operator {
+		EQ, NE, LT, LE, GT, GE, IN, BETWEEN
+	}
+
+	/**
+	 * One comparison, with the literals converted for the column type.
+	 */
+	private static final class Condition {
+		final Column column;
+		final Operator operator;
+		final Object[] literals;
+
+		Condition(final Column column, final Operator operator, final Object[] literals) {
+			this.column = column;
+			this.operator = operator;
+			this.literals = literals;
+		}
+
+		boolean matches(Object value) {
+			if (value == null) {
+				return false;
+			}
+			if (value instanceof Date) {
+				value = LocalDateTime.ofInstant(((Date) value).toInstant(),
+						column.getDatabase().getTimeZone().toZoneId());
+			}
+			switch (operator) {
+			case EQ:
+				return compare(value, literals[0]) == 0;
+			case NE:
+				return compare(value, literals[0]) != 0;
+			case LT:
+				return compare(value, literals[0]) < 0;
+			case LE:
+				return compare(value, literals[0]) <= 0;
+			case GT:
+				return compare(value, literals[0]) > 0;
+			case GE:
+				return compare(value, literals[0]) >= 0;
+			case BETWEEN:
+				return compare(value, literals[0]) >= 0 && compare(value, literals[1]) <= 0;
+			default:
+				for (final Object literal : literals) {
+					if (compare(value, literal) == 0) {
+						return true;
+					}
+				}
+				return false;
+			}
+		}
+
+		/**
+		 * @return the smallest value the condition can match, or null if it
+		 *         has no lower bound.
+		 */
+		Object lowerBound() {
+			switch (operator) {
+			case EQ:
+			case GT:
+			case GE:
+			case BETWEEN:
+				return literals[0];
+			case IN:
+				return extreme(-1);
+			default:
+				return null;
+			}
+		}
+
+		Object upperBound() {
+			switch (operator) {
+			case EQ:
+			case LT:
+			case LE:
+				return literals[0];
+			case BETWEEN:
+				return literals[1];
+			case IN:
+				return extreme(1);
+			default:
+				return null;
+			}
+		}
+
+		private Object extreme(final int sign) {
+			Object result = literals[0];
+			for (final Object literal : literals) {
+				if (compare(literal, result) * sign > 0) {
+					result = literal;
+				}
+			}
+			return result;
+		}
+	}
+
+	private final List<Condition> conditions;
+
+	private RowFilter(final List<Condition> conditions) {
+		this.conditions = conditions;
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the expression cannot be parsed or names a column the
+	 *             table does not have.
+	 */
+	static RowFilter parse(final String expression, final Table table) {
+		return new Parser(expression, table).parse();
+	}
+
+	/**
+	 * @return true if the current row of the cursor satisfies every condition.
+	 */
+	boolean matches(final Cursor cursor) throws IOException {
+		for (final Condition condition : conditions) {
+			if (!condition.matches(cursor.getCurrentRowValue(condition.column))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Opens a cursor on the rows which can match: the range of the best index
+	 * whose first column is constrained, or the whole table. The rows still
+	 * have to be checked with {@link #matches(Cursor)}.
+	 */
+	Cursor openCursor(final Table table) throws IOException {
+		Index best = null;
+		int bestRank = 0;
+		Object lower = null;
+		Object upper = null;
+		for (final Index index : table.getIndexes()) {
+			final Index.Column first = index.getColumns().get(0);
+			if (!first.isAscending()) {
+				continue;
+			}
+			Object indexLower = null;
+			Object indexUpper = null;
+			for (final Condition condition : conditions) {
+				if (condition.column.equals(first.getColumn())) {
+					indexLower = tighter(indexLower, condition.lowerBound(), 1);
+					indexUpper = tighter(indexUpper, condition.upperBound(), -1);
+				}
+			}
+			// an equality beats a closed range beats an open one; ties go to the narrower index
+			final int rank;
+			if (indexLower == null && indexUpper == null) {
+				rank = 0;
+			} else if (indexLower == null || indexUpper == null) {
+				rank = 1;
+			} else {
+				rank = compare(indexLower, indexUpper) == 0 ? 3 : 2;
+			}
+			if (rank > bestRank
+					|| (rank == bestRank && rank > 0 && index.getColumnCount() < best.getColumnCount())) {
+				best = index;
+				bestRank = rank;
+				lower = indexLower;
+				upper = indexUpper;
+			}
+		}
+		if (best == null) {
+			return CursorBuilder.createCursor(table);
+		}
+		final CursorBuilder builder = table.newCursor().setIndex(best);
+		if (lower != null) {
+			builder.setStartEntry(entry(best, lower, IndexData.MIN_VALUE)).setStartRowInclusive(true);
+		}
+		if (upper != null) {
+			builder.setEndEntry(entry(best, upper, IndexData.MAX_VALUE)).setEndRowInclusive(true);
+		}
+		return builder.toCursor();
+	}
+
+	private static Object tighter(final Object current, final Object candidate, final int sign) {
+		if (candidate == null) {
+			return current;
+		}
+		return current == null || compare(candidate, current) * sign > 0 ? candidate : current;
+	}
+
+	/**
+	 * An index entry with the bound for the first column and the filler for
+	 * the others, so that the range covers every value of the other columns.
+	 */
+	private static Object[] entry(final Index index, final Object bound, final Object filler) {
+		final Object[] entry = new Object[index.getColumnCount()];
+		Arrays.fill(entry, filler);
+		entry[0] = bound;
+		return entry;
+	}
+
+	/**
+	 * Compares a column value with a literal of the same kind: numbers by
+	 * value, text ignoring case, dates as local date times of the database
+	 * time zone.
+	 */
+	static int compare(final Object value, final Object literal) {
+		if (value instanceof Number && literal instanceof Number) {
+			if (isIntegral(value) && isIntegral(literal)) {
+				// BYTE is unsigned in Access and in its indexes
+				return Long.compare(KeyRangePartitioner.keyValue(value), KeyRangePartitioner.keyValue(literal));
+			}
+			return toBigDecimal((Number) value).compareTo(toBigDecimal((Number) literal));
+		}
+		if (value instanceof LocalDateTime && literal instanceof LocalDateTime) {
+			return ((LocalDateTime) value).compareTo((LocalDateTime) literal);
+		}
+		if (value instanceof Boolean && literal instanceof Boolean) {
+			return Boolean.compare((Boolean) value, (Boolean) literal);
+		}
+		return value.toString().compareToIgnoreCase(literal.toString());
+	}
+
+	private static boolean isIntegral(final Object number) {
+		return number instanceof Long || number instanceof Integer || number instanceof Short
+				|| number instanceof Byte;
+	}
+
+	private static BigDecimal toBigDecimal(final Number number) {
+		return number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+	}
+
+	/**
+	 * Recursive descent parser over a hand-written tokenizer.
+	 */
+	private static final class Parser {
+		private final String text;
+		private final Table table;
+		private int position;
+
+		Parser(final String text, final Table table) {
+			this.text = text;
+			this.table = table;
+		}
+
+		RowFilter parse() {
+			final List<Condition> conditions = new ArrayList<Condition>();
+			do {
+				conditions.add(condition());
+			} while (keyword("AND"));
+			skipSpaces();
+			if (position < text.length()) {
+				throw error("Unexpected '" + text.substring(position) + "'");
+			}
+			return new RowFilter(conditions);
+		}
+
+		private Condition condition() {
+			final Column column = column();
+			if (keyword("IN")) {
+				expect('(');
+				final List<Object> literals = new ArrayList<Object>();
+				do {
+					literals.add(literal(column));
+				} while (symbol(","));
+				expect(')');
+				return new Condition(column, Operator.IN, literals.toArray());
+			}
+			if (keyword("BETWEEN")) {
+				final Object low = literal(column);
+				if (!keyword("AND")) {
+					throw error("Expected AND in BETWEEN");
+				}
+				return new Condition(column, Operator.BETWEEN, new Object[] { low, literal(column) });
+			}
+			final Operator operator;
+			if (symbol("<=")) {
+				operator = Operator.LE;
+			} else if (symbol(">=")) {
+				operator = Operator.GE;
+			} else if (symbol("<>") || symbol("!=")) {
+				operator = Operator.NE;
+			} else if (symbol("=")) {
+				operator = Operator.EQ;
+			} else if (symbol("<")) {
+				operator = Operator.LT;
+			} else if (symbol(">")) {
+				operator = Operator.GT;
+			} else {
+				throw error("Expected a comparison operator, IN or BETWEEN");
+			}
+			return new Condition(column, operator, new Object[] { literal(column) });
+		}
+
+		private Column column() {
+			skipSpaces();
+			final String name;
+			if (symbol("[")) {
+				final int end = text.indexOf(']', position);
+				if (end < 0) {
+					throw error("Unterminated column name");
+				}
+				name = text.substring(position, end);
+				position = end + 1;
+			} else {
+				name = word();
+			}
+			try {
+				return table.getColumn(name);
+			} catch (final IllegalArgumentException e) {
+				throw error("Table '" + table.getName() + "' has no column '" + name + "'");
+			}
+		}
+
+		private Object literal(final Column column) {
+			skipSpaces();
+			final String token;
+			if (symbol("'")) {
+				final StringBuilder value = new StringBuilder();
+				while (true) {
+					final int end = text.indexOf('\'', position);
+					if (end < 0) {
+						throw error("Unterminated string");
+					}
+					value.append(text, position, end);
+					position = end + 1;
+					if (position < text.length() && text.charAt(position) == '\'') {
+						value.append('\'');
+						position++;
+					} else {
+						break;
+					}
+				}
+				token = value.toString();
+			} else {
+				token = word();
+			}
+			try {
+				return convert(column, token);
+			} catch (final NumberFormatException | DateTimeParseException e) {
+				throw error("'" + token + "' is not a valid value for column '" + column.getName() + "'");
+			}
+		}
+
+		private Object convert(final Column column, final String token) {
+			final DataType type = column.getType();
+			switch (type) {
+			case BYTE:
+			case INT:
+			case LONG:
+			case BIG_INT:
+				final long number = Long.parseLong(token);
+				if (type == DataType.BYTE && (number < 0 || number > 255)
+						|| type == DataType.INT && (number < Short.MIN_VALUE || number > Short.MAX_VALUE)
+						|| type == DataType.LONG && (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE)) {
+					throw new NumberFormatException("Out of range for " + type + ": " + token);
+				}
+				return KeyRangePartitioner.toKey(type, number);
+			case FLOAT:
+			case DOUBLE:
+				return Double.valueOf(token);
+			case MONEY:
+			case NUMERIC:
+				return new BigDecimal(token);
+			case BOOLEAN:
+				return Boolean.valueOf(token.equals("1") || token.equalsIgnoreCase("true")
+						|| token.equalsIgnoreCase("yes"));
+			case SHORT_DATE_TIME:
+				final String iso = token.replace(' ', 'T');
+				return iso.indexOf('T') < 0 ? LocalDate.parse(iso).atStartOfDay() : LocalDateTime.parse(iso);
+			default:
+				return token;
+			}
+		}
+
+		private String word() {
+			skipSpaces();
+			final int start = position;
+			while (position < text.length() && isWordCharacter(text.charAt(position))) {
+				position++;
+			}
+			if (start == position) {
+				throw error("Expected a name or value");
+			}
+			return text.substring(start, position);
+		}
+
+		private static boolean isWordCharacter(final char c) {
+			return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-' || c == '+' || c == ':';
+		}
+
+		private boolean keyword(final String keyword) {
+			skipSpaces();
+			final int end = position + keyword.length();
+			if (text.regionMatches(true, position, keyword, 0, keyword.length())
+					&& (end == text.length() || !isWordCharacter(text.charAt(end)))) {
+				position = end;
+				return true;
+			}
+			return false;
+		}
+
+		private boolean symbol(final String symbol) {
+			skipSpaces();
+			if (text.startsWith(symbol, position)) {
+				position += symbol.length();
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(final char c) {
+			if (!symbol(String.valueOf(c))) {
+				throw error("Expected '" + c + "'");
+			}
+		}
+
+		private void skipSpaces() {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+
+		private IllegalArgumentException error(final String message) {
+			return new IllegalArgumentException(message + " at position " + position + " of --where: " + text);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package access2csv;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.Cursor;
+import com.healthmarketscience.jackcess.DataType;
+
+/**
+ * Reads the rows of a cursor positionally into a reused value array through
+ * {@link Cursor#getCurrentRowValue(Column)}, instead of iterating the cursor
+ * which builds a {@link com.healthmarketscience.jackcess.Row} map per row.
+ */
+class RowReader {
+	private final Cursor cursor;
+	private final Column[] columns;
+	private final Object[] values;
+	private final RowFilter filter;
+	private final boolean[] attachments;
+
+	RowReader(final Cursor cursor) {
+		this(cursor, cursor.getTable().getColumns());
+	}
+
+	RowReader(final Cursor cursor, final List<? extends Column> columns) {
+		this(cursor, columns, null);
+	}
+
+	/**
+	 * Reads only the given columns of the rows matching the filter, which
+	 * may be null to read every row.
+	 */
+	RowReader(final Cursor cursor, final List<? extends Column> columns, final RowFilter filter) {
+		this.cursor = cursor;
+		this.columns = columns.toArray(new Column[columns.size()]);
+		this.values = new Object[this.columns.length];
+		this.filter = filter;
+		this.attachments = new boolean[this.columns.length];
+		for (int i = 0; i < this.columns.length; i++) {
+			attachments[i] = this.columns[i].getType() == DataType.COMPLEX_TYPE;
+		}
+	}
+
+	Column[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return the values of the current row, overwritten by the next call to
+	 *         {@link #next()}.
+	 */
+	Object[] values() {
+		return values;
+	}
+
+	/**
+	 * Moves to the next row and reads its values into {@link #values()}.
+	 *
+	 * @return false once the cursor is exhausted.
+	 */
+	boolean next() throws IOException {
+		return next(values);
+	}
+
+	/**
+	 * Moves to the next row and reads its values into {@code target}, which
+	 * must hold at least one slot per column.
+	 */
+	boolean next(final Object[] target) throws IOException {
+		do {
+			if (!cursor.moveToNextRow()) {
+				return false;
+			}
+		} while (filter != null && !filter.matches(cursor));
+		for (int i = 0; i < columns.length; i++) {
+			target[i] = cursor.getCurrentRowValue(columns[i]);
+			if (attachments[i]) {
+				// read while this thread owns the cursor, not by a codec on a pipeline thread
+				BinaryCodecs.loadAttachments(target[i]);
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,106 @@
+package access2csv;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer, single-consumer ring of preallocated row slots.
+ * <p>
+ * The producer fills the slot returned by {@link #claim()} and hands it over
+ * with {@link #publish()}; the consumer reads the slot returned by
+ * {@link #take()} and gives it back with {@link #release()}. A full ring
+ * blocks the producer, so memory stays bounded however large the table is.
+ */
+final class RowRing {
+	private static final int SPINS = 100;
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private final Object[][] slots;
+	private final int mask;
+	private volatile long published;
+	private volatile long released;
+	private volatile boolean finished;
+	private volatile Throwable failure;
+
+	/**
+	 * @param capacity
+	 *            number of slots, rounded up to a power of two
+	 * @param width
+	 *            number of values per slot
+	 */
+	RowRing(final int capacity, final int width) {
+		final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.slots = new Object[size][width];
+		this.mask = size - 1;
+	}
+
+	int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Waits for a free slot. Producer side.
+	 */
+	Object[] claim() throws IOException {
+		final long next = published;
+		for (int idle = 0; next - released >= slots.length; idle++) {
+			await(idle);
+		}
+		return slots[(int) (next & mask)];
+	}
+
+	void publish() {
+		published = published + 1;
+	}
+
+	/**
+	 * Marks the end of the rows. Producer side.
+	 */
+	void finish() {
+		finished = true;
+	}
+
+	/**
+	 * Waits for a published slot. Consumer side.
+	 *
+	 * @return the next row, or null after the producer finished and every row
+	 *         was taken.
+	 */
+	Object[] take() throws IOException {
+		final long next = released;
+		for (int idle = 0; next >= published; idle++) {
+			if (finished && next >= published) {
+				return null;
+			}
+			await(idle);
+		}
+		return slots[(int) (next & mask)];
+	}
+
+	void release() {
+		released = released + 1;
+	}
+
+	/**
+	 * Wakes up both sides with the failure of the other.
+	 */
+	void abort(final Throwable cause) {
+		failure = cause;
+	}
+
+	private void await(final int idle) throws IOException {
+		if (failure != null) {
+			throw new IOException("Pipeline aborted", failure);
+		}
+		if (Thread.interrupted()) {
+			throw new InterruptedIOException("Interrupted while waiting on the row ring");
+		}
+		if (idle < SPINS) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+	}
+}
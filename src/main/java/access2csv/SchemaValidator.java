@@ -0,0 +1,298 @@
+package access2csv;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.healthmarketscience.jackcess.DataType;
+
+/**
+ * Checks imported rows against the schema file, compiled once from the
+ * header: each schema entry is resolved to the position of its column in
+ * the data and to its {@link DataType}, so a row is checked without lookups
+ * and nothing is allocated unless a value is invalid.
+ * <p>
+ * NUMERIC values must look like {@code -?\d+(\.\d+)?}, BYTE, INT and LONG
+ * values must be integers in range, which Jackcess would wrap around, FLOAT,
+ * DOUBLE and MONEY values must be numbers and textual values must fit their
+ * type and the length of the schema entry. SHORT_DATE_TIME values must be ISO
+ * dates or date times and BOOLEAN values one of true, false, yes, no, 1, -1
+ * or 0; both are replaced by their {@link Date} or {@link Boolean}, as
+ * Jackcess does not parse them itself. Empty values of these non textual
+ * types are replaced by null. Values are only replaced in valid rows, so
+ * rejected rows keep their text. When several values of a row are invalid, the
+ * last one in schema order is reported.
+ */
+final class SchemaValidator {
+	private static final Object NULL = new Object();
+
+	private final int[] positions;
+	private final String[] names;
+	private final DataType[] types;
+	private final int[] lengths;
+
+	private SchemaValidator(final int[] positions, final String[] names, final DataType[] types,
+			final int[] lengths) {
+		this.positions = positions;
+		this.names = names;
+		this.types = types;
+		this.lengths = lengths;
+	}
+
+	/**
+	 * @param dataColumns
+	 *            the column names of the data, in order
+	 */
+	static SchemaValidator compile(final List<ImportSchemaFile> schema, final List<String> dataColumns) {
+		final List<ImportSchemaFile> checked = new ArrayList<ImportSchemaFile>();
+		final List<Integer> positions = new ArrayList<Integer>();
+		final List<DataType> checkedTypes = new ArrayList<DataType>();
+		for (final ImportSchemaFile entry : schema) {
+			if (entry.isHeader()) {
+				continue;
+			}
+			int position = -1;
+			for (int i = 0; i < dataColumns.size() && position < 0; i++) {
+				if (dataColumns.get(i).equalsIgnoreCase(entry.getcolumn())) {
+					position = i;
+				}
+			}
+			if (position < 0) {
+				System.out.println("Ignoring (" + entry.getcolumn() + ") -> cannot find in -> " + dataColumns);
+				continue;
+			}
+			final DataType type = entry.toAccessDataType();
+			if (isChecked(type)) {
+				checked.add(entry);
+				positions.add(position);
+				checkedTypes.add(type);
+			}
+		}
+		final int[] positionArray = new int[checked.size()];
+		final String[] names = new String[checked.size()];
+		final DataType[] types = new DataType[checked.size()];
+		final int[] lengths = new int[checked.size()];
+		for (int i = 0; i < positionArray.length; i++) {
+			positionArray[i] = positions.get(i);
+			names[i] = checked.get(i).getcolumn();
+			types[i] = checkedTypes.get(i);
+			lengths[i] = types[i].isTextual() ? checked.get(i).toLength() : 0;
+		}
+		return new SchemaValidator(positionArray, names, types, lengths);
+	}
+
+	/**
+	 * @return the error of the row, or null when it is valid.
+	 */
+	RowDataImportError validate(final Object[] row) {
+		RowDataImportError err = null;
+		Object[] converted = null;
+		for (int i = 0; i < positions.length; i++) {
+			final int position = positions[i];
+			final Object value = position < row.length ? row[position] : null;
+			if (value == null) {
+				continue;
+			}
+			final DataType type = types[i];
+			final CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+			final String message;
+			if (type.isTextual()) {
+				if (lengths[i] > 0 && text.length() > lengths[i]) {
+					message = "Data Length (" + text.length() + " > " + lengths[i] + ") -> Data (" + text + ")";
+				} else {
+					message = type.isValidSize(text.length()) ? null
+							: "Data Length (" + text.length() + " > expected size for " + type + " ) -> Data (" + text
+									+ ")";
+				}
+			} else if (type != DataType.NUMERIC && text.length() == 0) {
+				converted = convert(converted, i, NULL);
+				message = null;
+			} else if (type == DataType.BOOLEAN) {
+				final Boolean bool = parseBoolean(text);
+				if (bool != null) {
+					converted = convert(converted, i, bool);
+				}
+				message = bool != null ? null : "Data Type (" + type + ") Mismatch -> value -> " + text;
+			} else if (type == DataType.SHORT_DATE_TIME) {
+				final Date date = parseDate(text);
+				if (date != null) {
+					converted = convert(converted, i, date);
+				}
+				message = date != null ? null : "Data Type (" + type + ") Mismatch -> value -> " + text;
+			} else {
+				final boolean valid;
+				switch (type) {
+				case NUMERIC:
+					valid = isNumeric(text);
+					break;
+				case BYTE:
+					valid = isInteger(text, 0, 255);
+					break;
+				case INT:
+					valid = isInteger(text, Short.MIN_VALUE, Short.MAX_VALUE);
+					break;
+				case LONG:
+					valid = isInteger(text);
+					break;
+				default:
+					valid = isNumeric(text) || isDecimal(text);
+				}
+				message = valid ? null : "Data Type (" + type + ") Mismatch -> value -> " + text;
+			}
+			if (message != null) {
+				err = error(err, i, text, message);
+			}
+		}
+		if (err == null && converted != null) {
+			for (int i = 0; i < converted.length; i++) {
+				if (converted[i] != null) {
+					row[positions[i]] = converted[i] == NULL ? null : converted[i];
+				}
+			}
+		}
+		return err;
+	}
+
+	private Object[] convert(final Object[] converted, final int i, final Object value) {
+		final Object[] values = converted != null ? converted : new Object[positions.length];
+		values[i] = value;
+		return values;
+	}
+
+	private RowDataImportError error(final RowDataImportError previous, final int i, final CharSequence text,
+			final String message) {
+		final RowDataImportError err = previous != null ? previous : new RowDataImportError();
+		err.ColumnNum = positions[i];
+		err.ColumnName = names[i];
+		err.ColumnValue = text.toString();
+		err.DataTypeDefined = types[i];
+		err.ErrorMessage = message;
+		return err;
+	}
+
+
+	/**
+	 * @return whether the text matches {@code -?\d+(\.\d+)?}.
+	 */
+	static boolean isNumeric(final CharSequence text) {
+		final int length = text.length();
+		int i = length > 0 && text.charAt(0) == '-' ? 1 : 0;
+		final int integerStart = i;
+		while (i < length && isDigit(text.charAt(i))) {
+			i++;
+		}
+		if (i == integerStart) {
+			return false;
+		}
+		if (i == length) {
+			return true;
+		}
+		if (text.charAt(i++) != '.') {
+			return false;
+		}
+		final int fractionStart = i;
+		while (i < length && isDigit(text.charAt(i))) {
+			i++;
+		}
+		return i == length && i > fractionStart;
+	}
+
+	/**
+	 * @return whether values of the type are checked.
+	 */
+	static boolean isChecked(final DataType type) {
+		switch (type) {
+		case NUMERIC:
+		case BYTE:
+		case INT:
+		case LONG:
+		case FLOAT:
+		case DOUBLE:
+		case MONEY:
+		case BOOLEAN:
+		case SHORT_DATE_TIME:
+			return true;
+		default:
+			return type.isTextual();
+		}
+	}
+
+	/**
+	 * @return whether the text is an integer in the range of a LONG column.
+	 */
+	static boolean isInteger(final CharSequence text) {
+		return isInteger(text, Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	private static boolean isInteger(final CharSequence text, final long min, final long max) {
+		final int length = text.length();
+		final boolean negative = length > 0 && text.charAt(0) == '-';
+		final int start = negative ? 1 : 0;
+		if (length == start || length - start > 10) {
+			return false;
+		}
+		long value = 0;
+		for (int i = start; i < length; i++) {
+			final char c = text.charAt(i);
+			if (!isDigit(c)) {
+				return false;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return negative ? -value >= min : value <= max;
+	}
+
+	private static boolean isDecimal(final CharSequence text) {
+		try {
+			new BigDecimal(text.toString());
+			return true;
+		} catch (final NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return the boolean of the text, or null when it is none.
+	 */
+	static Boolean parseBoolean(final CharSequence text) {
+		final String value = text.toString();
+		if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes") || value.equals("1")
+				|| value.equals("-1")) {
+			return Boolean.TRUE;
+		}
+		if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("no") || value.equals("0")) {
+			return Boolean.FALSE;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the date of an ISO date or date time such as {@code 2020-01-31},
+	 *         {@code 2020-01-31T13:45:00} or {@code 2020-01-31 13:45:00.5} in
+	 *         the default time zone, or null for other text.
+	 */
+	static Date parseDate(final CharSequence text) {
+		final int length = text.length();
+		if (length < 10 || length > 29 || !isDigit(text.charAt(0)) || text.charAt(4) != '-') {
+			return null;
+		}
+		try {
+			final LocalDateTime dateTime = length == 10 ? LocalDate.parse(text).atStartOfDay()
+					: LocalDateTime.parse(text.charAt(10) == ' '
+							? text.subSequence(0, 10) + "T" + text.subSequence(11, length)
+							: text);
+			return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+		} catch (final DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	private static boolean isDigit(final char c) {
+		return c >= '0' && c <= '9';
+	}
+}
@@ -0,0 +1,316 @@
+package access2csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.CursorBuilder;
+import com.healthmarketscience.jackcess.Database;
+import com.healthmarketscience.jackcess.Index;
+import com.healthmarketscience.jackcess.Table;
+
+/**
+ * Compares two snapshots of the same database table by table and writes the
+ * inserted, updated and deleted rows as a change set CSV with a leading
+ * {@code op} column of {@code I}, {@code U} or {@code D}.
+ * <p>
+ * Rows are matched on the primary key. The old snapshot is reduced to a
+ * {@link LongLongMap} from key to a 64-bit hash of the row, so memory grows
+ * by about 24 bytes per row whatever the row width. The new snapshot is then
+ * scanned once for inserts and updates, and the old one a second time for
+ * the rows whose keys were never matched, the deletes. A key of a single
+ * integral column is used as is; other keys are hashed to 64 bits.
+ */
+class SnapshotDiff {
+	static final String OP_COLUMN = "op";
+	static final String INSERT = "I";
+	static final String UPDATE = "U";
+	static final String DELETE = "D";
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Changes found in one table.
+	 */
+	static class TableChanges {
+		final String tableName;
+		long inserted;
+		long updated;
+		long deleted;
+
+		TableChanges(final String tableName) {
+			this.tableName = tableName;
+		}
+
+		long total() {
+			return inserted + updated + deleted;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("'%s': %d inserted, %d updated, %d deleted", tableName, inserted, updated, deleted);
+		}
+	}
+
+	/**
+	 * Writes a change set file for every table of either snapshot, or only
+	 * for {@code tableName} if it is not null.
+	 */
+	static List<TableChanges> diff(final File oldFile, final File newFile, final String tableName,
+			final ExportOptions options) throws IOException {
+		final List<TableChanges> changes = new ArrayList<TableChanges>();
+		final long start = System.nanoTime();
+		final Database oldDb = Driver.openReadOnly(oldFile);
+		try {
+			final Database newDb = Driver.openReadOnly(newFile);
+			try {
+				final Set<String> tableNames = new LinkedHashSet<String>();
+				if (tableName != null) {
+					tableNames.add(tableName);
+				} else {
+					tableNames.addAll(newDb.getTableNames());
+					tableNames.addAll(oldDb.getTableNames());
+				}
+				for (final String name : tableNames) {
+					final TableChanges tableChanges = diffTable(table(oldDb, name), table(newDb, name), name,
+							options);
+					if (tableChanges != null) {
+						System.out.println(tableChanges);
+						changes.add(tableChanges);
+					}
+				}
+			} finally {
+				newDb.close();
+			}
+		} finally {
+			oldDb.close();
+		}
+		long total = 0;
+		for (final TableChanges tableChanges : changes) {
+			total += tableChanges.total();
+		}
+		System.out.println(String.format("Total: %d changed rows in %d tables in %.2f s", total, changes.size(),
+				TableExportStats.seconds(System.nanoTime() - start)));
+		return changes;
+	}
+
+	private static Table table(final Database db, final String name) throws IOException {
+		return db.getTableNames().contains(name) ? db.getTable(name) : null;
+	}
+
+	/**
+	 * @return the changes, or null if the table cannot be compared because
+	 *         its columns differ or it has no primary key.
+	 */
+	static TableChanges diffTable(final Table oldTable, final Table newTable, final String tableName,
+			final ExportOptions options) throws IOException {
+		final Table reference = newTable != null ? newTable : oldTable;
+		if (oldTable != null && newTable != null && !describe(oldTable).equals(describe(newTable))) {
+			System.out.println(String.format("Columns of '%s' differ between the snapshots, skipped", tableName));
+			return null;
+		}
+		final int[] keyPositions = keyPositions(reference);
+		if (keyPositions == null) {
+			System.out.println(String.format("Table '%s' has no primary key, skipped", tableName));
+			return null;
+		}
+		final boolean exactKey = keyPositions.length == 1 && KeyRangePartitioner.INTEGRAL_KEY_TYPES
+				.contains(reference.getColumns().get(keyPositions[0]).getType());
+
+		final File outputFile = options.csvFile(tableName);
+		System.out.println(String.format("Comparing '%s' into %s", tableName, outputFile));
+		final TableChanges changes = new TableChanges(tableName);
+		final ChangeSetWriter writer = new ChangeSetWriter(reference.getColumns(),
+				Driver.openOutput(outputFile, options), options);
+		try {
+			if (options.withHeader) {
+				writer.writeHeader();
+			}
+			if (oldTable == null) {
+				final RowReader reader = new RowReader(CursorBuilder.createCursor(newTable));
+				while (reader.next()) {
+					writer.write(INSERT, reader.values());
+					changes.inserted++;
+				}
+				return changes;
+			}
+
+			final LongLongMap oldRows = new LongLongMap(oldTable.getRowCount());
+			RowReader reader = new RowReader(CursorBuilder.createCursor(oldTable));
+			while (reader.next()) {
+				oldRows.put(key(reader.values(), keyPositions, exactKey), hash(reader.values()));
+			}
+
+			int matched = 0;
+			if (newTable != null) {
+				reader = new RowReader(CursorBuilder.createCursor(newTable));
+				while (reader.next()) {
+					final Object[] values = reader.values();
+					final int slot = oldRows.slot(key(values, keyPositions, exactKey));
+					if (slot < 0) {
+						writer.write(INSERT, values);
+						changes.inserted++;
+					} else {
+						if (oldRows.value(slot) != hash(values)) {
+							writer.write(UPDATE, values);
+							changes.updated++;
+						}
+						oldRows.mark(slot);
+						matched++;
+					}
+				}
+			}
+
+			if (matched < oldRows.size()) {
+				reader = new RowReader(CursorBuilder.createCursor(oldTable));
+				while (reader.next()) {
+					final int slot = oldRows.slot(key(reader.values(), keyPositions, exactKey));
+					if (!oldRows.isMarked(slot)) {
+						writer.write(DELETE, reader.values());
+						oldRows.mark(slot);
+						changes.deleted++;
+					}
+				}
+			}
+			return changes;
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static List<String> describe(final Table table) {
+		final List<String> columns = new ArrayList<String>();
+		for (final Column column : table.getColumns()) {
+			columns.add(column.getName() + ' ' + column.getType());
+		}
+		return columns;
+	}
+
+	/**
+	 * @return the positions of the primary key columns, or null if the table
+	 *         has no primary key.
+	 */
+	static int[] keyPositions(final Table table) {
+		for (final Index index : table.getIndexes()) {
+			if (index.isPrimaryKey()) {
+				final List<? extends Index.Column> keyColumns = index.getColumns();
+				final int[] positions = new int[keyColumns.size()];
+				for (int i = 0; i < positions.length; i++) {
+					positions[i] = table.getColumns().indexOf(keyColumns.get(i).getColumn());
+				}
+				return positions;
+			}
+		}
+		return null;
+	}
+
+	static long key(final Object[] values, final int[] keyPositions, final boolean exactKey) {
+		if (exactKey) {
+			return ((Number) values[keyPositions[0]]).longValue();
+		}
+		long h = FNV_OFFSET;
+		for (final int position : keyPositions) {
+			h = (h ^ hash(values[position])) * FNV_PRIME;
+		}
+		return LongLongMap.mix(h);
+	}
+
+	static long hash(final Object[] values) {
+		long h = FNV_OFFSET;
+		for (final Object value : values) {
+			h = (h ^ hash(value)) * FNV_PRIME;
+		}
+		return LongLongMap.mix(h);
+	}
+
+	/**
+	 * A 64-bit hash of a value as Jackcess returns it: FNV-1a over the
+	 * characters or bytes of text and binary values, and the bits of numbers
+	 * and dates.
+	 */
+	static long hash(final Object value) {
+		if (value == null) {
+			return 0x9e3779b97f4a7c15L;
+		}
+		if (value instanceof CharSequence) {
+			final CharSequence text = (CharSequence) value;
+			long h = FNV_OFFSET;
+			for (int i = 0, n = text.length(); i < n; i++) {
+				h = (h ^ text.charAt(i)) * FNV_PRIME;
+			}
+			return h;
+		}
+		if (value instanceof byte[]) {
+			long h = FNV_OFFSET;
+			for (final byte b : (byte[]) value) {
+				h = (h ^ (b & 0xff)) * FNV_PRIME;
+			}
+			return h;
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return LongLongMap.mix(Double.doubleToLongBits(((Number) value).doubleValue()));
+		}
+		if (value instanceof BigDecimal) {
+			return hash(((BigDecimal) value).toPlainString());
+		}
+		if (value instanceof Number) {
+			return LongLongMap.mix(((Number) value).longValue());
+		}
+		if (value instanceof Date) {
+			return LongLongMap.mix(((Date) value).getTime());
+		}
+		if (value instanceof Boolean) {
+			return (Boolean) value ? 1 : 2;
+		}
+		return hash(value.toString());
+	}
+
+	/**
+	 * Writes change set rows: the operation followed by the row values
+	 * rendered with the column codecs.
+	 */
+	static final class ChangeSetWriter {
+		private final Column[] columns;
+		private final CsvChannelWriter writer;
+		private final ValueCodec[] codecs;
+
+		ChangeSetWriter(final List<? extends Column> columns, final WritableByteChannel out,
+				final ExportOptions options) {
+			this.columns = columns.toArray(new Column[columns.size()]);
+			this.writer = new CsvChannelWriter(out, options);
+			this.codecs = ValueCodecs.forColumns(columns, options);
+		}
+
+		void writeHeader() throws IOException {
+			writer.writeText(OP_COLUMN);
+			for (final Column column : columns) {
+				writer.writeText(column.getName());
+			}
+			writer.endRecord();
+		}
+
+		void write(final String op, final Object[] values) throws IOException {
+			writer.writeSafeText(op);
+			for (int i = 0; i < codecs.length; i++) {
+				if (values[i] == null) {
+					writer.writeNull();
+				} else {
+					codecs[i].write(values[i], writer);
+				}
+			}
+			writer.endRecord();
+		}
+
+		void close() throws IOException {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package access2csv;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.Cursor;
+import com.healthmarketscience.jackcess.CursorBuilder;
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Index;
+import com.healthmarketscience.jackcess.Row;
+import com.healthmarketscience.jackcess.Table;
+
+/**
+ * The state of a table after an export: a hash of its definition, a hash of
+ * the export options shaping the output, its row count and its largest
+ * primary key. Checkpoints are kept as one properties
+ * file per table in the state directory and tell the next export whether a
+ * table is unchanged, has only new rows appended, or must be exported in
+ * full.
+ */
+class TableCheckpoint {
+	private static final String SUFFIX = ".checkpoint";
+
+	final String tableName;
+	final long definitionHash;
+	/** See {@link ExportOptions#outputHash()}, or -1 when not recorded. */
+	final long optionsHash;
+	final long rowCount;
+	/** The largest key of a single-column integral primary key, or null. */
+	final Long maxKey;
+
+	TableCheckpoint(final String tableName, final long definitionHash, final long optionsHash, final long rowCount,
+			final Long maxKey) {
+		this.tableName = tableName;
+		this.definitionHash = definitionHash;
+		this.optionsHash = optionsHash;
+		this.rowCount = rowCount;
+		this.maxKey = maxKey;
+	}
+
+	static TableCheckpoint of(final Table table, final ExportOptions options) throws IOException {
+		Long maxKey = null;
+		final Index index = KeyRangePartitioner.partitionIndex(table);
+		if (index != null) {
+			final Cursor cursor = CursorBuilder.createCursor(index);
+			cursor.afterLast();
+			final Row last = cursor.getPreviousRow();
+			if (last != null) {
+				maxKey = KeyRangePartitioner.keyValue(index.getColumns().get(0).getColumn().getRowValue(last));
+			}
+		}
+		return new TableCheckpoint(table.getName(), definitionHash(table), options.outputHash(), table.getRowCount(),
+				maxKey);
+	}
+
+	/**
+	 * Hashes the column names, types and sizes and the primary key, so that
+	 * a changed table definition forces a full export.
+	 */
+	static long definitionHash(final Table table) {
+		final StringBuilder definition = new StringBuilder();
+		for (final Column column : table.getColumns()) {
+			definition.append(column.getName()).append(':').append(column.getType()).append(':')
+					.append(column.getLength()).append(':').append(column.getPrecision()).append(':')
+					.append(column.getScale()).append(';');
+		}
+		final Index index = KeyRangePartitioner.partitionIndex(table);
+		if (index != null) {
+			definition.append("pk:").append(index.getColumns().get(0).getName());
+		}
+		final CRC32 crc = new CRC32();
+		crc.update(definition.toString().getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+
+	boolean isUnchangedSince(final TableCheckpoint previous) {
+		return previous != null && definitionHash == previous.definitionHash && optionsHash == previous.optionsHash
+				&& rowCount == previous.rowCount
+				&& (maxKey == null ? previous.maxKey == null : maxKey.equals(previous.maxKey));
+	}
+
+	/**
+	 * @return true if the rows past the previous checkpoint can be exported
+	 *         on their own: the definition and the options are the same,
+	 *         there is a key and neither the key nor the row count went down.
+	 */
+	boolean canAppendTo(final TableCheckpoint previous) {
+		return previous != null && definitionHash == previous.definitionHash && optionsHash == previous.optionsHash
+				&& maxKey != null
+				&& previous.maxKey != null && maxKey >= previous.maxKey && rowCount >= previous.rowCount;
+	}
+
+	/**
+	 * Opens a primary key cursor on the rows after the key of the previous
+	 * checkpoint.
+	 */
+	static Cursor openCursorAfter(final Table table, final TableCheckpoint previous) throws IOException {
+		final Index index = KeyRangePartitioner.partitionIndex(table);
+		final DataType type = index.getColumns().get(0).getColumn().getType();
+		return table.newCursor().setIndex(index)
+				.setStartEntry(KeyRangePartitioner.toKey(type, previous.maxKey)).setStartRowInclusive(false)
+				.toCursor();
+	}
+
+	/**
+	 * @return the number of rows after the key of the previous checkpoint,
+	 *         whatever the export filters.
+	 */
+	static long countRowsAfter(final Table table, final TableCheckpoint previous) throws IOException {
+		final Cursor cursor = openCursorAfter(table, previous);
+		long rows = 0;
+		while (cursor.moveToNextRow()) {
+			rows++;
+		}
+		return rows;
+	}
+
+	static File file(final File stateDir, final String tableName) {
+		try {
+			return new File(stateDir, URLEncoder.encode(tableName, "UTF-8") + SUFFIX);
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return the checkpoint of the last export of the table, or null if
+	 *         there is none.
+	 */
+	static TableCheckpoint load(final File stateDir, final String tableName) throws IOException {
+		final File file = file(stateDir, tableName);
+		if (!file.isFile()) {
+			return null;
+		}
+		final Properties properties = new Properties();
+		final InputStream in = new FileInputStream(file);
+		try {
+			properties.load(in);
+		} finally {
+			in.close();
+		}
+		final String maxKey = properties.getProperty("maxKey");
+		try {
+			return new TableCheckpoint(tableName, Long.parseLong(properties.getProperty("definitionHash")),
+					Long.parseLong(properties.getProperty("optionsHash", "-1")),
+					Long.parseLong(properties.getProperty("rowCount")),
+					maxKey == null || maxKey.isEmpty() ? null : Long.valueOf(maxKey));
+		} catch (final NumberFormatException e) {
+			throw new IOException("Invalid checkpoint " + file, e);
+		}
+	}
+
+	/**
+	 * Writes the checkpoint through a temporary file, so that an interrupted
+	 * run leaves the previous checkpoint in place.
+	 */
+	void store(final File stateDir) throws IOException {
+		final Properties properties = new Properties();
+		properties.setProperty("table", tableName);
+		properties.setProperty("definitionHash", Long.toString(definitionHash));
+		properties.setProperty("optionsHash", Long.toString(optionsHash));
+		properties.setProperty("rowCount", Long.toString(rowCount));
+		properties.setProperty("maxKey", maxKey == null ? "" : maxKey.toString());
+		final File file = file(stateDir, tableName);
+		final File temp = new File(stateDir, file.getName() + ".tmp");
+		final OutputStream out = new FileOutputStream(temp);
+		try {
+			properties.store(out, "access2csv export checkpoint");
+		} finally {
+			out.close();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+}
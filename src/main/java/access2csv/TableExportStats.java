@@ -0,0 +1,48 @@
+package access2csv;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row count and elapsed time of a single table export.
+ */
+public class TableExportStats {
+	public final String tableName;
+	public final long rows;
+	public final long elapsedNanos;
+
+	public TableExportStats(final String tableName, final long rows, final long elapsedNanos) {
+		this.tableName = tableName;
+		this.rows = rows;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public double rowsPerSecond() {
+		return rowsPerSecond(rows, elapsedNanos);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("'%s': %d rows in %.2f s (%.0f rows/sec)", tableName, rows, seconds(elapsedNanos),
+				rowsPerSecond());
+	}
+
+	static double seconds(final long nanos) {
+		return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+	}
+
+	static double rowsPerSecond(final long rows, final long nanos) {
+		return nanos <= 0 ? 0 : rows / seconds(nanos);
+	}
+
+	static void printSummary(final List<TableExportStats> stats, final long wallNanos) {
+		long totalRows = 0;
+		System.out.println("Export summary:");
+		for (final TableExportStats stat : stats) {
+			System.out.println("  " + stat);
+			totalRows += stat.rows;
+		}
+		System.out.println(String.format("Total: %d rows from %d tables in %.2f s (%.0f rows/sec)", totalRows,
+				stats.size(), seconds(wallNanos), rowsPerSecond(totalRows, wallNanos)));
+	}
+}
@@ -0,0 +1,140 @@
+package access2csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.healthmarketscience.jackcess.DataType;
+
+/**
+ * Infers the column types of a CSV file for the import schema file. The
+ * first rows and a reservoir sample of the remaining rows are checked, and
+ * each column gets the narrowest type all its sampled values fit: LONG,
+ * DOUBLE, SHORT_DATE_TIME or TEXT, falling back to MEMO for long text.
+ * <p>
+ * As only a sample is checked, TEXT columns are given twice the longest
+ * sampled length, and integers with leading zeros or more digits than a
+ * DOUBLE holds exactly are kept as text. Rows that do not fit the inferred
+ * types anyway are rejected by the schema checks of the import.
+ */
+final class TypeInference {
+	/** The rows read from the start of the file, and the size of the sample of the rest. */
+	static final int SAMPLE_ROWS = 1000;
+
+	private static final int MAX_TEXT_LENGTH = 255;
+	private static final int MAX_DOUBLE_DIGITS = 15;
+
+	private TypeInference() {
+	}
+
+	/**
+	 * @return a schema entry for each column of the header.
+	 */
+	static List<ImportSchemaFile> infer(final File inputFile, final char delimiter, final int sampleRows,
+			final Random random) throws IOException {
+		final List<String[]> sample = new ArrayList<String[]>();
+		final String[] header;
+		final BulkImporter.Records records = BulkImporter.Records.open(inputFile, delimiter, true);
+		try {
+			header = BulkImporter.readHeader(records, inputFile);
+			final String[][] reservoir = new String[sampleRows][];
+			long rest = 0;
+			String[] line;
+			while ((line = records.readNext()) != null) {
+				if (sample.size() < sampleRows) {
+					sample.add(line);
+				} else if (rest < sampleRows) {
+					reservoir[(int) rest++] = line;
+				} else {
+					final long slot = (long) (random.nextDouble() * ++rest);
+					if (slot < sampleRows) {
+						reservoir[(int) slot] = line;
+					}
+				}
+			}
+			for (int i = 0; i < rest && i < sampleRows; i++) {
+				sample.add(reservoir[i]);
+			}
+		} finally {
+			records.close();
+		}
+
+		final List<ImportSchemaFile> schema = new ArrayList<ImportSchemaFile>();
+		for (int column = 0; column < header.length; column++) {
+			final ImportSchemaFile entry = new ImportSchemaFile();
+			entry.setcolumn(header[column]);
+			infer(entry, sample, column);
+			schema.add(entry);
+		}
+		return schema;
+	}
+
+	private static void infer(final ImportSchemaFile entry, final List<String[]> sample, final int column) {
+		boolean integer = true;
+		boolean number = true;
+		boolean date = true;
+		int maxLength = 0;
+		for (final String[] row : sample) {
+			final String value = column < row.length ? row[column] : null;
+			if (value == null || value.isEmpty()) {
+				continue;
+			}
+			maxLength = Math.max(maxLength, value.length());
+			final boolean exact = !hasLeadingZero(value) && digits(value) <= MAX_DOUBLE_DIGITS;
+			integer = integer && exact && SchemaValidator.isInteger(value);
+			number = number && exact && SchemaValidator.isNumeric(value);
+			date = date && SchemaValidator.parseDate(value) != null;
+		}
+		if (maxLength == 0) {
+			entry.setdatatype(DataType.TEXT.name());
+			entry.setlength(String.valueOf(MAX_TEXT_LENGTH));
+		} else if (integer) {
+			entry.setdatatype(DataType.LONG.name());
+		} else if (number) {
+			entry.setdatatype(DataType.DOUBLE.name());
+		} else if (date) {
+			entry.setdatatype(DataType.SHORT_DATE_TIME.name());
+		} else if (maxLength * 2 <= MAX_TEXT_LENGTH) {
+			entry.setdatatype(DataType.TEXT.name());
+			entry.setlength(String.valueOf(maxLength * 2));
+		} else {
+			entry.setdatatype(DataType.MEMO.name());
+		}
+	}
+
+	private static boolean hasLeadingZero(final String value) {
+		final int start = value.startsWith("-") ? 1 : 0;
+		return value.length() > start + 1 && value.charAt(start) == '0' && value.charAt(start + 1) != '.';
+	}
+
+	private static int digits(final String value) {
+		int digits = 0;
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+				digits++;
+			}
+		}
+		return digits;
+	}
+
+	/**
+	 * Writes the schema in the format read by {@link Driver#loadSchemafile(File)},
+	 * in the platform charset that reads it.
+	 */
+	static void write(final List<ImportSchemaFile> schema, final File schemaFile) throws IOException {
+		final CsvChannelWriter out = new CsvChannelWriter(Driver.openOutputChannel(schemaFile),
+				Charset.defaultCharset(), false);
+		try {
+			out.writeNext(Driver.ImportSchemaFileHeaders);
+			for (final ImportSchemaFile entry : schema) {
+				out.writeNext(new String[] { entry.getcolumn(), entry.getdatatype(),
+						entry.getlength() == null ? "" : entry.getlength() });
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
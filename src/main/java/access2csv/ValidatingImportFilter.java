@@ -0,0 +1,47 @@
+package access2csv;
+
+import java.io.IOException;
+
+import com.healthmarketscience.jackcess.util.SimpleImportFilter;
+
+/**
+ * An import filter which drops the rows failing the schema checks into a
+ * {@link RejectSink}. Checking a row is kept apart from rejecting it, so a
+ * parallel import can check rows on its parsing threads and reject them in
+ * order on the writing thread.
+ */
+abstract class ValidatingImportFilter extends SimpleImportFilter {
+	private final RejectSink rejects;
+	private int rownum;
+	/** Compiled by {@link #filterColumns} once the columns are known, or null for no checks. */
+	SchemaValidator validator;
+
+	ValidatingImportFilter(final RejectSink rejects) {
+		this.rejects = rejects;
+	}
+
+	@Override
+	public Object[] filterRow(final Object[] row) throws IOException {
+		rownum++;
+		return accept(rownum, row, validate(row)) ? row : null;
+	}
+
+	/**
+	 * @return the error of the row, or null when it is valid. Safe to call
+	 *         from several threads once the columns are filtered.
+	 */
+	RowDataImportError validate(final Object[] row) {
+		return row == null || validator == null ? null : validator.validate(row);
+	}
+
+	/**
+	 * @return whether the row is imported, false when it was rejected.
+	 */
+	boolean accept(final int rowNum, final Object[] row, final RowDataImportError err) throws IOException {
+		if (err == null) {
+			return true;
+		}
+		rejects.reject(rowNum, row, err);
+		return false;
+	}
+}
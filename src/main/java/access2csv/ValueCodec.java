@@ -0,0 +1,13 @@
+package access2csv;
+
+import java.io.IOException;
+
+/**
+ * Writes the non-null values of one column into a {@link ValueSink}. Codecs
+ * are compiled once per column by {@link ValueCodecs} and may keep reusable
+ * scratch state, so an instance must only be used by one thread.
+ */
+interface ValueCodec {
+
+	void write(Object value, ValueSink out) throws IOException;
+}
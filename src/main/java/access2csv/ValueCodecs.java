@@ -0,0 +1,258 @@
+package access2csv;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.DatabaseBuilder;
+
+/**
+ * Compiles a {@link ValueCodec} for each column from its {@link Column#getType()}.
+ */
+final class ValueCodecs {
+
+	/** Date format writing ISO-8601 local date times, the default. */
+	static final String ISO_DATE_FORMAT = "iso";
+	/** Date format writing {@link Date#toString()}, as older releases did. */
+	static final String LEGACY_DATE_FORMAT = "legacy";
+
+	static final ValueCodec TO_STRING = (value, out) -> out.writeText(value.toString());
+
+	static final ValueCodec INTEGRAL = (value, out) -> {
+		if (value instanceof Number) {
+			// BYTE values are unsigned
+			out.writeLong(KeyRangePartitioner.keyValue(value));
+		} else {
+			TO_STRING.write(value, out);
+		}
+	};
+
+	static final ValueCodec BOOLEAN = (value, out) -> {
+		if (value instanceof Boolean) {
+			out.writeBoolean((Boolean) value);
+		} else {
+			TO_STRING.write(value, out);
+		}
+	};
+
+	private ValueCodecs() {
+	}
+
+	static ValueCodec[] forColumns(final List<? extends Column> columns, final ExportOptions options) {
+		final ValueCodec[] codecs = new ValueCodec[columns.size()];
+		for (int i = 0; i < codecs.length; i++) {
+			codecs[i] = forColumn(columns.get(i), options);
+		}
+		return codecs;
+	}
+
+	static ValueCodec forColumn(final Column column, final ExportOptions options) {
+		switch (column.getType()) {
+		case BYTE:
+		case INT:
+		case LONG:
+		case BIG_INT:
+			return INTEGRAL;
+		case FLOAT:
+			return new FloatingPointCodec(true);
+		case DOUBLE:
+			return new FloatingPointCodec(false);
+		case MONEY:
+		case NUMERIC:
+			return new DecimalCodec();
+		case BOOLEAN:
+			return BOOLEAN;
+		case SHORT_DATE_TIME:
+			return dateCodec(column, options.dateFormat);
+		case BINARY:
+		case OLE:
+		case COMPLEX_TYPE:
+			return BinaryCodecs.forColumn(column, options);
+		default:
+			return TO_STRING;
+		}
+	}
+
+	static ValueCodec dateCodec(final Column column, final String dateFormat) {
+		final TimeZone timeZone = column.getDatabase().getTimeZone();
+		if (LEGACY_DATE_FORMAT.equalsIgnoreCase(dateFormat)) {
+			return TO_STRING;
+		}
+		if (ISO_DATE_FORMAT.equalsIgnoreCase(dateFormat)) {
+			return new IsoDateCodec(timeZone);
+		}
+		final SimpleDateFormat format = DatabaseBuilder.createDateFormat(dateFormat);
+		format.setTimeZone(timeZone);
+		return (value, out) -> {
+			if (value instanceof Date) {
+				out.writeText(format.format((Date) value));
+			} else {
+				TO_STRING.write(value, out);
+			}
+		};
+	}
+
+	/**
+	 * Writes doubles and floats as {@link Double#toString()} would, rendering
+	 * small integral values without allocating.
+	 */
+	static final class FloatingPointCodec implements ValueCodec {
+		private final boolean single;
+		private final StringBuilder scratch = new StringBuilder(32);
+
+		FloatingPointCodec(final boolean single) {
+			this.single = single;
+		}
+
+		@Override
+		public void write(final Object value, final ValueSink out) throws IOException {
+			if (!(value instanceof Number)) {
+				TO_STRING.write(value, out);
+				return;
+			}
+			final double d = ((Number) value).doubleValue();
+			if (Math.abs(d) < 1e7 && d == (long) d && !(d == 0 && 1 / d < 0)) {
+				scratch.setLength(0);
+				scratch.append((long) d).append(".0");
+				out.writeNumber(scratch);
+			} else if (Double.isNaN(d) || Double.isInfinite(d)) {
+				out.writeText(value.toString());
+			} else {
+				out.writeNumber(single ? Float.toString(((Number) value).floatValue()) : Double.toString(d));
+			}
+		}
+	}
+
+	/**
+	 * Writes decimals in plain notation, never with an exponent.
+	 */
+	static final class DecimalCodec implements ValueCodec {
+		private final StringBuilder scratch = new StringBuilder(48);
+
+		@Override
+		public void write(final Object value, final ValueSink out) throws IOException {
+			if (!(value instanceof BigDecimal)) {
+				TO_STRING.write(value, out);
+				return;
+			}
+			final BigDecimal decimal = (BigDecimal) value;
+			final int scale = decimal.scale();
+			scratch.setLength(0);
+			if (scale < 0 || decimal.precision() > 18) {
+				scratch.append(decimal.toPlainString());
+			} else {
+				long unscaled = decimal.unscaledValue().longValue();
+				if (unscaled < 0) {
+					scratch.append('-');
+					unscaled = -unscaled;
+				}
+				final int start = scratch.length();
+				scratch.append(unscaled);
+				if (scale > 0) {
+					while (scratch.length() - start <= scale) {
+						scratch.insert(start, '0');
+					}
+					scratch.insert(scratch.length() - scale, '.');
+				}
+			}
+			out.writeNumber(scratch);
+		}
+	}
+
+	/**
+	 * Writes ISO-8601 local date times such as {@code 2020-01-31T13:45:00},
+	 * adding milliseconds only when they are not zero. Dates are converted in
+	 * the time zone of the database, matching the proleptic Gregorian
+	 * calendar Jackcess uses to decode them.
+	 */
+	static final class IsoDateCodec implements ValueCodec {
+		private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+		private final TimeZone timeZone;
+		private final StringBuilder scratch = new StringBuilder(32);
+
+		IsoDateCodec(final TimeZone timeZone) {
+			this.timeZone = timeZone;
+		}
+
+		@Override
+		public void write(final Object value, final ValueSink out) throws IOException {
+			scratch.setLength(0);
+			if (value instanceof Date) {
+				final long millis = ((Date) value).getTime();
+				final long local = millis + timeZone.getOffset(millis);
+				appendDate(Math.floorDiv(local, MILLIS_PER_DAY));
+				final long millisOfDay = Math.floorMod(local, MILLIS_PER_DAY);
+				appendTime((int) (millisOfDay / 3600000), (int) (millisOfDay / 60000 % 60),
+						(int) (millisOfDay / 1000 % 60), (int) (millisOfDay % 1000));
+			} else if (value instanceof LocalDateTime) {
+				final LocalDateTime dateTime = (LocalDateTime) value;
+				appendDate(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth());
+				appendTime(dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond(),
+						dateTime.getNano() / 1000000);
+			} else {
+				TO_STRING.write(value, out);
+				return;
+			}
+			out.writeSafeText(scratch);
+		}
+
+		/**
+		 * Civil date from days since the epoch, after Howard Hinnant's
+		 * {@code civil_from_days} algorithm.
+		 */
+		private void appendDate(final long epochDay) {
+			final long z = epochDay + 719468;
+			final long era = Math.floorDiv(z, 146097);
+			final long dayOfEra = z - era * 146097;
+			final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+			final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+			final long mp = (5 * dayOfYear + 2) / 153;
+			final int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+			final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+			final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+			appendDate((int) year, month, day);
+		}
+
+		private void appendDate(final int year, final int month, final int day) {
+			pad(year, 4);
+			scratch.append('-');
+			pad(month, 2);
+			scratch.append('-');
+			pad(day, 2);
+		}
+
+		private void appendTime(final int hour, final int minute, final int second, final int millis) {
+			scratch.append('T');
+			pad(hour, 2);
+			scratch.append(':');
+			pad(minute, 2);
+			scratch.append(':');
+			pad(second, 2);
+			if (millis != 0) {
+				scratch.append('.');
+				pad(millis, 3);
+			}
+		}
+
+		private void pad(final int value, final int width) {
+			if (value < 0) {
+				scratch.append('-');
+				pad(-value, width);
+				return;
+			}
+			for (int limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+				if (value < limit) {
+					scratch.append('0');
+				}
+			}
+			scratch.append(value);
+		}
+	}
+}
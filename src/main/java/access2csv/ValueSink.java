@@ -0,0 +1,32 @@
+package access2csv;
+
+import java.io.IOException;
+
+/**
+ * Receives typed cell values from a {@link ValueCodec}. Each output format
+ * decides how the values are represented and escaped.
+ */
+interface ValueSink {
+
+	void writeNull() throws IOException;
+
+	/**
+	 * Writes arbitrary text, escaping it as the format requires.
+	 */
+	void writeText(CharSequence value) throws IOException;
+
+	/**
+	 * Writes text known to contain only printable ASCII characters other than
+	 * quotes, separators and backslashes, so it never needs escaping.
+	 */
+	void writeSafeText(CharSequence value) throws IOException;
+
+	void writeLong(long value) throws IOException;
+
+	/**
+	 * Writes a number already rendered as a plain decimal literal.
+	 */
+	void writeNumber(CharSequence value) throws IOException;
+
+	void writeBoolean(boolean value) throws IOException;
+}
@@ -0,0 +1,266 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.healthmarketscience.jackcess.ColumnBuilder;
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Database;
+import com.healthmarketscience.jackcess.Database.FileFormat;
+import com.healthmarketscience.jackcess.DatabaseBuilder;
+import com.healthmarketscience.jackcess.Table;
+import com.healthmarketscience.jackcess.TableBuilder;
+
+/**
+ * Tests for {@link ArrowRecordWriter}, reading the file back with a minimal
+ * FlatBuffers reader.
+ */
+public class ArrowRecordWriterTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public final void testExportArrowFile() throws Exception {
+		final File dbFile = new File(tempDir.newFolder(), "arrow.accdb");
+		final Database db = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			final Table table = new TableBuilder("Cities")
+					.addColumn(new ColumnBuilder("Id", DataType.LONG).setAutoNumber(true))
+					.addColumn(new ColumnBuilder("City", DataType.TEXT))
+					.addColumn(new ColumnBuilder("Name", DataType.TEXT))
+					.addColumn(new ColumnBuilder("Price", DataType.MONEY))
+					.addColumn(new ColumnBuilder("Flag", DataType.BOOLEAN)).setPrimaryKey("Id").toTable(db);
+			table.addRow(null, "Oslo", "a", new BigDecimal("12.5"), true);
+			table.addRow(null, null, "b", new BigDecimal("-0.0001"), false);
+			table.addRow(null, "Oslo", null, null, true);
+			table.addRow(null, "Rome", "d", new BigDecimal("1"), false);
+			table.addRow(null, "Oslo", "e", new BigDecimal("2"), true);
+			table.addRow(null, "Rome", "f", new BigDecimal("3"), false);
+			table.addRow(null, "Oslo", "g", new BigDecimal("4"), true);
+		} finally {
+			db.close();
+		}
+
+		final ExportOptions options = ExportOptions.of(true, tempDir.newFolder(), "", true, "");
+		options.setFormat("arrow");
+		options.recordBatchSize = 3;
+		Driver.export(dbFile, "Cities", options);
+
+		final File file = new File(options.outputDir, "Cities.arrow");
+		final ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+		final int size = buf.capacity();
+		assertEquals("ARROW1", new String(buf.array(), 0, 6, StandardCharsets.US_ASCII));
+		assertEquals("ARROW1", new String(buf.array(), size - 6, 6, StandardCharsets.US_ASCII));
+
+		final int footerStart = size - 10 - buf.getInt(size - 10);
+		final int footer = footerStart + buf.getInt(footerStart);
+		final int schema = deref(buf, field(buf, footer, 1));
+		final int fields = deref(buf, field(buf, schema, 1));
+		assertEquals(5, buf.getInt(fields));
+		final List<String> names = new ArrayList<String>();
+		final List<Integer> types = new ArrayList<Integer>();
+		final List<Boolean> dictionaries = new ArrayList<Boolean>();
+		for (int i = 0; i < 5; i++) {
+			final int f = deref(buf, fields + 4 + 4 * i);
+			names.add(string(buf, field(buf, f, 0)));
+			types.add((int) buf.get(field(buf, f, 2)));
+			dictionaries.add(field(buf, f, 4) >= 0);
+		}
+		assertEquals(Arrays.asList("Id", "City", "Name", "Price", "Flag"), names);
+		assertEquals(Arrays.asList(2, 5, 5, 7, 6), types);
+		assertEquals(Arrays.asList(false, true, false, false, false), dictionaries);
+
+		// the first batch creates the City dictionary, the second adds Rome
+		final List<String> dictionary = new ArrayList<String>();
+		final int dictionaryBlocks = deref(buf, field(buf, footer, 2));
+		assertEquals(2, buf.getInt(dictionaryBlocks));
+		for (int i = 0; i < 2; i++) {
+			final int message = message(buf, dictionaryBlocks + 4 + 24 * i);
+			assertEquals(2, buf.get(field(buf, message, 1)));
+			final int header = deref(buf, field(buf, message, 2));
+			assertEquals(i > 0, field(buf, header, 2) >= 0 && buf.get(field(buf, header, 2)) == 1);
+			final int batch = deref(buf, field(buf, header, 1));
+			final int body = body(buf, dictionaryBlocks + 4 + 24 * i);
+			dictionary.addAll(strings(buf, batch, body, 0, (int) buf.getLong(field(buf, batch, 0))));
+		}
+		assertEquals(Arrays.asList("Oslo", "Rome"), dictionary);
+
+		final List<Integer> ids = new ArrayList<Integer>();
+		final List<String> cities = new ArrayList<String>();
+		final List<String> namesColumn = new ArrayList<String>();
+		final List<BigDecimal> prices = new ArrayList<BigDecimal>();
+		final List<Boolean> flags = new ArrayList<Boolean>();
+		final int batchBlocks = deref(buf, field(buf, footer, 3));
+		assertEquals(3, buf.getInt(batchBlocks));
+		for (int i = 0; i < 3; i++) {
+			final int message = message(buf, batchBlocks + 4 + 24 * i);
+			assertEquals(3, buf.get(field(buf, message, 1)));
+			final int batch = deref(buf, field(buf, message, 2));
+			final int body = body(buf, batchBlocks + 4 + 24 * i);
+			final int length = (int) buf.getLong(field(buf, batch, 0));
+			assertEquals(i < 2 ? 3 : 1, length);
+			for (int row = 0; row < length; row++) {
+				ids.add(isValid(buf, batch, body, 0, row) ? buf.getInt(bufferStart(buf, batch, body, 1) + 4 * row) : null);
+				cities.add(isValid(buf, batch, body, 2, row)
+						? dictionary.get(buf.getInt(bufferStart(buf, batch, body, 3) + 4 * row)) : null);
+				if (isValid(buf, batch, body, 7, row)) {
+					final byte[] decimal = new byte[16];
+					for (int b = 0; b < 16; b++) {
+						decimal[15 - b] = buf.get(bufferStart(buf, batch, body, 8) + 16 * row + b);
+					}
+					prices.add(new BigDecimal(new BigInteger(decimal), 4));
+				} else {
+					prices.add(null);
+				}
+				flags.add(isValid(buf, batch, body, 9, row) && isValid(buf, batch, body, 10, row));
+			}
+			namesColumn.addAll(strings(buf, batch, body, 4, length));
+		}
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), ids);
+		assertEquals(Arrays.asList("Oslo", null, "Oslo", "Rome", "Oslo", "Rome", "Oslo"), cities);
+		assertEquals(Arrays.asList("a", "b", null, "d", "e", "f", "g"), namesColumn);
+		assertEquals(Arrays.asList(new BigDecimal("12.5000"), new BigDecimal("-0.0001"), null,
+				new BigDecimal("1.0000"), new BigDecimal("2.0000"), new BigDecimal("3.0000"),
+				new BigDecimal("4.0000")), prices);
+		assertEquals(Arrays.asList(true, false, true, false, true, false, true), flags);
+	}
+
+	@Test
+	public final void testByteIsUnsigned() throws Exception {
+		final File dbFile = new File(tempDir.newFolder(), "bytes.accdb");
+		final Database db = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			new TableBuilder("Levels").addColumn(new ColumnBuilder("Level", DataType.BYTE))
+					.addColumn(new ColumnBuilder("Delta", DataType.INT)).toTable(db).addRow((byte) 200, -3);
+		} finally {
+			db.close();
+		}
+
+		final ExportOptions options = ExportOptions.of(true, tempDir.newFolder(), "", true, "");
+		options.setFormat("arrow");
+		Driver.export(dbFile, "Levels", options);
+
+		final ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(new File(options.outputDir, "Levels.arrow").toPath()))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		final int size = buf.capacity();
+		final int footerStart = size - 10 - buf.getInt(size - 10);
+		final int footer = footerStart + buf.getInt(footerStart);
+		final int fields = deref(buf, field(buf, deref(buf, field(buf, footer, 1)), 1));
+		final List<String> types = new ArrayList<String>();
+		for (int i = 0; i < 2; i++) {
+			final int type = deref(buf, field(buf, deref(buf, fields + 4 + 4 * i), 3));
+			types.add(buf.getInt(field(buf, type, 0)) + (buf.get(field(buf, type, 1)) == 1 ? " signed" : " unsigned"));
+		}
+		assertEquals(Arrays.asList("8 unsigned", "16 signed"), types);
+
+		final int batchBlocks = deref(buf, field(buf, footer, 3));
+		final int batch = deref(buf, field(buf, message(buf, batchBlocks + 4), 2));
+		assertEquals(200, buf.get(bufferStart(buf, batch, body(buf, batchBlocks + 4), 1)) & 0xff);
+	}
+
+	@Test
+	public final void testDictionaryIsCapped() throws Exception {
+		final ArrowRecordWriter.TextVector vector = new ArrowRecordWriter.TextVector(null, 2);
+		for (final String value : new String[] { "a", "a", "b", "b" }) {
+			vector.append(value);
+		}
+		vector.chooseEncoding();
+		assertTrue(vector.isDictionaryEncoded());
+		vector.encodeIndices();
+		vector.writeDictionary(new FlatBufferBuilder(256), new ArrowRecordWriter.Body());
+		vector.reset();
+
+		// past the limit new values are added again instead of looked up
+		for (final String value : new String[] { "c", "c", "a" }) {
+			vector.append(value);
+		}
+		vector.encodeIndices();
+		assertTrue(vector.hasNewEntries());
+		assertEquals(2, vector.dictionary.size());
+		vector.writeDictionary(new FlatBufferBuilder(256), new ArrowRecordWriter.Body());
+		vector.reset();
+
+		vector.append("b");
+		vector.encodeIndices();
+		assertFalse(vector.hasNewEntries());
+	}
+
+	/**
+	 * @return the position of a table field, or -1 when it is absent.
+	 */
+	private static int field(final ByteBuffer buf, final int table, final int field) {
+		final int vtable = table - buf.getInt(table);
+		if (4 + 2 * field >= buf.getShort(vtable)) {
+			return -1;
+		}
+		final int offset = buf.getShort(vtable + 4 + 2 * field);
+		return offset == 0 ? -1 : table + offset;
+	}
+
+	private static int deref(final ByteBuffer buf, final int position) {
+		return position + buf.getInt(position);
+	}
+
+	private static String string(final ByteBuffer buf, final int position) {
+		final int start = deref(buf, position);
+		return new String(buf.array(), start + 4, buf.getInt(start), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the Message table of a footer block.
+	 */
+	private static int message(final ByteBuffer buf, final int block) {
+		final int offset = (int) buf.getLong(block);
+		assertEquals(-1, buf.getInt(offset));
+		assertEquals(buf.getInt(block + 8), 8 + buf.getInt(offset + 4));
+		return offset + 8 + buf.getInt(offset + 8);
+	}
+
+	private static int body(final ByteBuffer buf, final int block) {
+		return (int) buf.getLong(block) + buf.getInt(block + 8);
+	}
+
+	private static int bufferStart(final ByteBuffer buf, final int batch, final int body, final int index) {
+		final int buffers = deref(buf, field(buf, batch, 2));
+		return body + (int) buf.getLong(buffers + 4 + 16 * index);
+	}
+
+	private static boolean isValid(final ByteBuffer buf, final int batch, final int body, final int index,
+			final int row) {
+		return (buf.get(bufferStart(buf, batch, body, index) + row / 8) & 1 << row % 8) != 0;
+	}
+
+	/**
+	 * Reads a UTF-8 vector whose validity, offsets and data are the buffers
+	 * starting at {@code index}.
+	 */
+	private static List<String> strings(final ByteBuffer buf, final int batch, final int body, final int index,
+			final int length) {
+		final List<String> strings = new ArrayList<String>();
+		final int offsets = bufferStart(buf, batch, body, index + 1);
+		final int data = bufferStart(buf, batch, body, index + 2);
+		for (int row = 0; row < length; row++) {
+			final int start = buf.getInt(offsets + 4 * row);
+			strings.add(isValid(buf, batch, body, index, row)
+					? new String(buf.array(), data + start, buf.getInt(offsets + 4 * row + 4) - start,
+							StandardCharsets.UTF_8)
+					: null);
+		}
+		return strings;
+	}
+}
@@ -0,0 +1,78 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.opencsv.CSVWriter;
+
+/**
+ * Tests for {@link CsvChannelWriter}, comparing its output with opencsv's
+ * {@link CSVWriter}.
+ */
+public class CsvChannelWriterTest {
+
+	private static final String[][] ROWS = new String[][] {
+			{ "plain", "", "1.5", "with space" },
+			{ "comma,inside", "quote\"inside", "\"\"", "new\nline", "carriage\rreturn" },
+			{ "café", "€ 10", "😀 emoji", "über,\"quoted\"" },
+			{ null, "after null" },
+			{ "" } };
+
+	@Test
+	public final void testMatchesCsvWriterQuoteAll() throws Exception {
+		assertMatchesCsvWriter(StandardCharsets.UTF_8, true);
+	}
+
+	@Test
+	public final void testMatchesCsvWriterQuoteSpecialOnly() throws Exception {
+		assertMatchesCsvWriter(StandardCharsets.UTF_8, false);
+	}
+
+	@Test
+	public final void testMatchesCsvWriterOtherCharsets() throws Exception {
+		assertMatchesCsvWriter(StandardCharsets.ISO_8859_1, false);
+		assertMatchesCsvWriter(Charset.forName("windows-1252"), true);
+		assertMatchesCsvWriter(StandardCharsets.UTF_16, true);
+	}
+
+	@Test
+	public final void testPutLong() throws Exception {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ChannelOutput out = new ChannelOutput(Channels.newChannel(bytes), StandardCharsets.UTF_8, 4);
+		for (final long value : new long[] { 0, 7, -42, Long.MAX_VALUE, Long.MIN_VALUE }) {
+			out.putLong(value);
+			out.putAscii(' ');
+		}
+		out.close();
+		assertEquals("0 7 -42 9223372036854775807 -9223372036854775808 ",
+				new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	private static void assertMatchesCsvWriter(final Charset charset, final boolean applyQuotesToAll)
+			throws Exception {
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		final CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(expected, charset));
+		for (final String[] row : ROWS) {
+			csvWriter.writeNext(row, applyQuotesToAll);
+		}
+		csvWriter.close();
+
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		// a tiny buffer forces a drain in the middle of multi-byte characters
+		final CsvChannelWriter writer = new CsvChannelWriter(Channels.newChannel(actual), charset, applyQuotesToAll, 5);
+		for (final String[] row : ROWS) {
+			writer.writeNext(row);
+		}
+		writer.close();
+
+		assertEquals(new String(expected.toByteArray(), charset), new String(actual.toByteArray(), charset));
+		assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+	}
+}
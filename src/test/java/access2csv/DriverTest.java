@@ -5,8 +5,25 @@ package access2csv;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
 
 import org.junit.After;
 import org.junit.Before;
@@ -16,6 +33,17 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 
+import com.healthmarketscience.jackcess.ColumnBuilder;
+import com.healthmarketscience.jackcess.Cursor;
+import com.healthmarketscience.jackcess.CursorBuilder;
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Database;
+import com.healthmarketscience.jackcess.Database.FileFormat;
+import com.healthmarketscience.jackcess.DatabaseBuilder;
+import com.healthmarketscience.jackcess.Row;
+import com.healthmarketscience.jackcess.Table;
+import com.healthmarketscience.jackcess.TableBuilder;
+
 /**
  * Tests for {@link Driver}.
  * 
@@ -106,4 +134,757 @@ public class DriverTest {
 		Driver.main(new String[] { "--input", new File(testDir, "table.csv").toString(), "--import" , "--output", new File(testDir, "testimport.accdb").toString()});
 	}
 
+	/**
+	 * Test method for {@link access2csv.Driver#importCSV(File, File, String, DataType, List, ImportOptions)}.
+	 */
+	@Test
+	public final void testImportBulkMatchesImportUtil() throws Exception {
+		final File csvFile = new File(testDir, "people.csv");
+		final StringBuilder csv = new StringBuilder("Id,Name,Note\n");
+		for (int i = 0; i < 2500; i++) {
+			csv.append(i).append(",name").append(i % 7).append(i % 3 == 0 ? ",\"a, \"\"quoted\"\"\"\n" : ",\n");
+		}
+		Files.write(csvFile.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+
+		final File plainDb = new File(testDir, "plain.accdb");
+		Driver.importCSV(csvFile, plainDb, ",", DataType.TEXT, null);
+		final ImportOptions options = new ImportOptions();
+		options.bulk = true;
+		options.batchSize = 1000;
+		options.indexColumns = Arrays.asList("Name");
+		final File bulkDb = new File(testDir, "bulk.accdb");
+		Driver.importCSV(csvFile, bulkDb, ",", DataType.TEXT, null, options);
+
+		final File plainDir = tempDir.newFolder();
+		final File bulkDir = tempDir.newFolder();
+		Driver.exportAll(plainDb, true, plainDir, "", true, "");
+		Driver.exportAll(bulkDb, true, bulkDir, "", true, "");
+		assertEquals(readFile(new File(plainDir, "people.csv")), readFile(new File(bulkDir, "people.csv")));
+		options.threads = 3;
+		final File parallelDb = new File(testDir, "parallel.accdb");
+		Driver.importCSV(csvFile, parallelDb, ",", DataType.TEXT, null, options);
+		final File parallelDir = tempDir.newFolder();
+		Driver.exportAll(parallelDb, true, parallelDir, "", true, "");
+		assertEquals(readFile(new File(plainDir, "people.csv")), readFile(new File(parallelDir, "people.csv")));
+		final Database db = DatabaseBuilder.open(bulkDb);
+		try {
+			final Table table = db.getTable("people");
+			assertEquals(2500, table.getRowCount());
+			assertEquals("Name", table.getIndex("Name").getColumns().get(0).getName());
+			assertEquals(2500 / 7 + 1, countMatches(table, "name0"));
+		} finally {
+			db.close();
+		}
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#importCSV(File, File, String, DataType, List, ImportOptions)} with rejected rows.
+	 */
+	@Test
+	public final void testImportRejectsInvalidRows() throws Exception {
+		final File csvFile = new File(testDir, "amounts.csv");
+		Files.write(csvFile.toPath(), "Id,Amount\n1,10\n2,ten\n3,-3\n4,\"1,5\"\n5,7\n".getBytes(StandardCharsets.UTF_8));
+		final ImportSchemaFile amount = new ImportSchemaFile();
+		amount.setcolumn("Amount");
+		amount.setdatatype("NUMERIC");
+
+		final File dbFile = new File(testDir, "amounts.accdb");
+		Driver.importCSV(csvFile, dbFile, ",", DataType.MEMO, Arrays.asList(amount), new ImportOptions());
+		assertEquals("row,column,error\n2,Amount,Data Type (NUMERIC) Mismatch -> value -> ten,2,ten\n"
+				+ "4,Amount,\"Data Type (NUMERIC) Mismatch -> value -> 1,5\",4,\"1,5\"\n",
+				readFile(new File(testDir, "amounts.csv.rejects.csv")));
+		final Database db = DatabaseBuilder.open(dbFile);
+		try {
+			assertEquals(3, db.getTable("amounts").getRowCount());
+		} finally {
+			db.close();
+		}
+
+		final ImportOptions options = new ImportOptions();
+		options.maxErrors = 1;
+		options.rejectsFile = new File(testDir, "limited.csv");
+		try {
+			Driver.importCSV(csvFile, new File(testDir, "limited.accdb"), ",", DataType.MEMO, Arrays.asList(amount),
+					options);
+			fail("Expected the import to abort");
+		} catch (final IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("--max-errors 1"));
+		}
+		assertEquals(3, readFile(options.rejectsFile).split("\n").length);
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#main(java.lang.String[])} with --infer-types.
+	 */
+	@Test
+	public final void testImportInferTypes() throws Exception {
+		final File csvFile = new File(testDir, "orders.csv");
+		Files.write(csvFile.toPath(), "Id,Total,Placed,Customer\n1,10.5,2020-01-31,Ann\n2,7,2020-02-01T09:30:00,Bob\n3,,,\n"
+				.getBytes(StandardCharsets.UTF_8));
+		final File dbFile = new File(testDir, "orders.accdb");
+		Driver.main(new String[] { "--input", csvFile.toString(), "--output", dbFile.toString(), "--import",
+				"--infer-types" });
+
+		assertEquals("column,datatype,length\nId,LONG,\nTotal,DOUBLE,\nPlaced,SHORT_DATE_TIME,\nCustomer,TEXT,6\n",
+				readFile(new File(testDir, "orders.csv.schema")));
+		final Database db = DatabaseBuilder.open(dbFile);
+		try {
+			final Table table = db.getTable("orders");
+			assertEquals(DataType.LONG, table.getColumn("Id").getType());
+			assertEquals(DataType.DOUBLE, table.getColumn("Total").getType());
+			assertEquals(DataType.SHORT_DATE_TIME, table.getColumn("Placed").getType());
+			assertEquals(6, table.getColumn("Customer").getLengthInUnits());
+			assertEquals(3, table.getRowCount());
+			final Row first = table.iterator().next();
+			assertEquals(10.5, first.getDouble("Total"), 0);
+			assertEquals(LocalDateTime.of(2020, 1, 31, 0, 0), first.getLocalDateTime("Placed"));
+		} finally {
+			db.close();
+		}
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#importCSV(File, File, String, DataType, List, ImportOptions)} with --append-to.
+	 */
+	@Test
+	public final void testImportAppendToExistingTable() throws Exception {
+		final File dbFile = new File(testDir, "feed.accdb");
+		final Database created = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			new TableBuilder("Feed").addColumn(new ColumnBuilder("Id", DataType.LONG).setAutoNumber(true))
+					.addColumn(new ColumnBuilder("Day", DataType.SHORT_DATE_TIME))
+					.addColumn(new ColumnBuilder("Amount", DataType.INT))
+					.addColumn(new ColumnBuilder("Paid", DataType.BOOLEAN))
+					.addColumn(new ColumnBuilder("Name", DataType.TEXT).setLengthInUnits(5)).toTable(created)
+					.addRow(null, null, 1, true, "first");
+		} finally {
+			created.close();
+		}
+
+		final File monday = new File(testDir, "monday.csv");
+		Files.write(monday.toPath(), "name,AMOUNT,extra,day,paid\nann,2,x,2020-01-06,1\nbob,70000,x,2020-01-06,0\n"
+				.getBytes(StandardCharsets.UTF_8));
+		final File tuesday = new File(testDir, "tuesday.csv");
+		Files.write(tuesday.toPath(), "Paid,Name,Amount\nyes,carla,-3\nno,dave,\n".getBytes(StandardCharsets.UTF_8));
+		final ImportOptions options = new ImportOptions();
+		options.appendTo = "feed";
+		Driver.importCSV(monday, dbFile, ",", DataType.MEMO, null, options);
+		options.threads = 2;
+		Driver.importCSV(tuesday, dbFile, ",", DataType.MEMO, null, options);
+
+		assertEquals("row,column,error\n2,AMOUNT,Data Type (INT) Mismatch -> value -> 70000,bob,70000,x,2020-01-06,0\n",
+				readFile(new File(testDir, "monday.csv.rejects.csv")));
+		final Database db = DatabaseBuilder.open(dbFile);
+		try {
+			assertEquals(Arrays.asList("Feed"), new ArrayList<String>(db.getTableNames()));
+			final List<String> rows = new ArrayList<String>();
+			for (final Row row : db.getTable("Feed")) {
+				rows.add(row.get("Id") + " " + row.get("Day") + " " + row.get("Amount") + " " + row.get("Paid") + " "
+						+ row.get("Name"));
+			}
+			assertEquals(Arrays.asList("1 null 1 true first", "2 2020-01-06T00:00 2 true ann",
+					"3 null -3 true carla", "4 null null false dave"), rows);
+		} finally {
+			db.close();
+		}
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#main(String[])} with a directory and a glob of CSV files.
+	 */
+	@Test
+	public final void testImportDirectoryOfFiles() throws Exception {
+		final File feeds = new File(testDir, "feeds");
+		feeds.mkdirs();
+		Files.write(new File(feeds, "alpha.csv").toPath(), "Id,Name\n1,ann\n2,bob\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(feeds, "alpha.csv.schema").toPath(),
+				"column,datatype,length\nId,LONG,\nName,TEXT,10\n".getBytes(StandardCharsets.UTF_8));
+		final StringBuilder beta = new StringBuilder("Day,Note\n");
+		for (int i = 0; i < 3000; i++) {
+			beta.append(i).append(",\"line ").append(i).append("\n\"\"next\"\"\"\n");
+		}
+		Files.write(new File(feeds, "BETA.CSV").toPath(), beta.toString().getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(feeds, "beta.csv.rejects.csv").toPath(), "row,column,error\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(feeds, "notes.txt").toPath(), "Id\n1\n".getBytes(StandardCharsets.UTF_8));
+
+		final File dbFile = new File(testDir, "feeds.accdb");
+		Driver.main(new String[] { "--input", feeds.toString(), "--output", dbFile.toString(), "--import",
+				"--import-threads", "2" });
+		final File globFile = new File(testDir, "glob.accdb");
+		Files.write(new File(feeds, "alpha.csv.rejects.csv").toPath(), "row,column,error\n".getBytes(StandardCharsets.UTF_8));
+		Driver.main(new String[] { "--input", new File(feeds, "a*.csv").toString(), "--output", globFile.toString(),
+				"--import" });
+
+		final Database db = DatabaseBuilder.open(dbFile);
+		try {
+			assertEquals(Arrays.asList("alpha", "BETA"), new ArrayList<String>(db.getTableNames()));
+			assertEquals(DataType.LONG, db.getTable("alpha").getColumn("Id").getType());
+			assertEquals(2, db.getTable("alpha").getRowCount());
+			final Table table = db.getTable("BETA");
+			assertEquals(3000, table.getRowCount());
+			int i = 0;
+			for (final Row row : table) {
+				assertEquals("line " + i + "\n\"next\"", row.getString("Note"));
+				i++;
+			}
+		} finally {
+			db.close();
+		}
+		final Database glob = DatabaseBuilder.open(globFile);
+		try {
+			assertEquals(Arrays.asList("alpha"), new ArrayList<String>(glob.getTableNames()));
+		} finally {
+			glob.close();
+		}
+	}
+
+	private static int countMatches(final Table table, final String name) throws Exception {
+		final Cursor cursor = new CursorBuilder(table).setIndex(table.getIndex("Name")).setStartEntry(name)
+				.setEndEntry(name).toCursor();
+		int count = 0;
+		while (cursor.getNextRow() != null) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#exportAll(File, ExportOptions)}.
+	 */
+	@Test
+	public final void testExportAllThreadsMatchesSequential() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final File sequentialDir = tempDir.newFolder();
+		final File parallelDir = tempDir.newFolder();
+
+		Driver.exportAll(dbFile, true, sequentialDir, "", true, "");
+		final ExportOptions options = ExportOptions.of(true, parallelDir, "", true, "");
+		options.threads = 3;
+		final List<TableExportStats> stats = Driver.exportAll(dbFile, options);
+
+		assertEquals(3, stats.size());
+		for (final String name : new String[] { "Small.csv", "Large.csv", "Empty.csv" }) {
+			assertEquals(readFile(new File(sequentialDir, name)), readFile(new File(parallelDir, name)));
+		}
+		assertEquals(LARGE_ROWS + 1, readFile(new File(parallelDir, "Large.csv")).split("\n").length);
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#exportPartitioned(File, String, ExportOptions)}.
+	 */
+	@Test
+	public final void testExportPartitionedMatchesSequential() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final File sequentialDir = tempDir.newFolder();
+		final File partitionedDir = tempDir.newFolder();
+
+		Driver.export(dbFile, "Large", true, sequentialDir, "", true, "");
+		final ExportOptions options = ExportOptions.of(true, partitionedDir, "", true, "");
+		options.partitions = 7;
+		options.threads = 3;
+		Driver.exportPartitioned(dbFile, "Large", options);
+
+		assertEquals(readFile(new File(sequentialDir, "Large.csv")), readFile(new File(partitionedDir, "Large.csv")));
+		assertArrayEquals(new String[] { "Large.csv" }, partitionedDir.list());
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#exportPartitioned(File, String, ExportOptions)} on an unsigned BYTE key.
+	 */
+	@Test
+	public final void testExportPartitionedByteKey() throws Exception {
+		final File dbFile = new File(testDir, "bytes.accdb");
+		final Database db = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			final Table table = new TableBuilder("Codes").addColumn(new ColumnBuilder("Code", DataType.BYTE))
+					.addColumn(new ColumnBuilder("Name", DataType.TEXT)).setPrimaryKey("Code").toTable(db);
+			for (int code = 0; code < 256; code += 5) {
+				table.addRow((byte) code, "c" + code);
+			}
+		} finally {
+			db.close();
+		}
+		final File sequentialDir = tempDir.newFolder();
+		final File partitionedDir = tempDir.newFolder();
+
+		Driver.export(dbFile, "Codes", true, sequentialDir, "", true, "");
+		final ExportOptions options = ExportOptions.of(true, partitionedDir, "", true, "");
+		options.partitions = 4;
+		options.threads = 2;
+		Driver.exportPartitioned(dbFile, "Codes", options);
+
+		final String sequential = readFile(new File(sequentialDir, "Codes.csv"));
+		assertEquals(53, sequential.split("\n").length);
+		assertEquals(sequential, readFile(new File(partitionedDir, "Codes.csv")));
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#export(File, String, ExportOptions)}.
+	 */
+	@Test
+	public final void testExportTypedValues() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final ExportOptions options = ExportOptions.of(true, testDir, "", false, "NULL");
+		options.setBooleanFormat("1,0");
+		Driver.export(dbFile, "Small", options);
+
+		final SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+		assertEquals("Id,Name,Amount,Created,Flag\n"
+				+ "1,foo,1.5," + iso.format(new Date(0)) + ",1\n"
+				+ "2,\"bar, \"\"quoted\"\"\",NULL,NULL,0\n"
+				+ "3,NULL,-2.0," + iso.format(new Date(86400000L)) + ",0\n",
+				readFile(new File(testDir, "Small.csv")));
+	}
+
+	/**
+	 * Test method for {@link access2csv.PipelinedExport#export(RowReader, java.nio.channels.WritableByteChannel, ExportOptions)}.
+	 */
+	@Test
+	public final void testExportPipelinedMatchesSequential() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final File sequentialDir = tempDir.newFolder();
+		final File pipelinedDir = tempDir.newFolder();
+
+		final ExportOptions options = ExportOptions.of(true, sequentialDir, "", true, "");
+		Driver.exportAll(dbFile, options);
+		options.outputDir = pipelinedDir;
+		options.pipelined = true;
+		Driver.exportAll(dbFile, options);
+
+		for (final String name : new String[] { "Small.csv", "Large.csv", "Empty.csv" }) {
+			assertEquals(readFile(new File(sequentialDir, name)), readFile(new File(pipelinedDir, name)));
+		}
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#exportStream(File, String, java.nio.channels.WritableByteChannel, ExportOptions)}.
+	 */
+	@Test
+	public final void testExportStreamWithTableMarkers() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final File filesDir = tempDir.newFolder();
+		final ExportOptions options = ExportOptions.of(true, filesDir, "", true, "");
+		Driver.exportAll(dbFile, options);
+
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		final WritableByteChannel channel = Channels.newChannel(stream);
+		Driver.exportStream(dbFile, null, channel, options);
+		assertTrue(channel.isOpen());
+
+		final StringBuilder expected = new StringBuilder();
+		for (final String name : new String[] { "Empty", "Large", "Small" }) {
+			expected.append("-- table: ").append(name).append('\n');
+			expected.append(readFile(new File(filesDir, name + ".csv")));
+		}
+		assertEquals(expected.toString(), new String(stream.toByteArray(), StandardCharsets.UTF_8));
+
+		stream.reset();
+		Driver.exportStream(dbFile, "Small", channel, options);
+		assertEquals(readFile(new File(filesDir, "Small.csv")), new String(stream.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#exportAll(File, ExportOptions)} and
+	 * {@link access2csv.Driver#exportPartitioned(File, String, ExportOptions)} with gzip compression.
+	 */
+	@Test
+	public final void testExportGzipMatchesUncompressed() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final File plainDir = tempDir.newFolder();
+		final File gzipDir = tempDir.newFolder();
+		final File partitionedDir = tempDir.newFolder();
+
+		Driver.exportAll(dbFile, ExportOptions.of(true, plainDir, "", true, ""));
+		final ExportOptions options = ExportOptions.of(true, gzipDir, "", true, "");
+		options.setCompression("gzip");
+		options.compressThreads = 2;
+		Driver.exportAll(dbFile, options);
+		options.outputDir = partitionedDir;
+		options.partitions = 4;
+		Driver.exportPartitioned(dbFile, "Large", options);
+
+		for (final String name : new String[] { "Small", "Large", "Empty" }) {
+			assertEquals(readFile(new File(plainDir, name + ".csv")), readGzipFile(new File(gzipDir, name + ".csv.gz")));
+		}
+		assertEquals(readFile(new File(plainDir, "Large.csv")), readGzipFile(new File(partitionedDir, "Large.csv.gz")));
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#exportIncremental(Database, String, ExportOptions)}.
+	 */
+	@Test
+	public final void testExportIncrementalWithCheckpoints() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final ExportOptions options = ExportOptions.of(true, tempDir.newFolder(), "", false, "");
+		options.stateDir = tempDir.newFolder();
+
+		Driver.exportAll(dbFile, options);
+		final String fullLarge = readFile(new File(options.outputDir, "Large.csv"));
+		assertEquals(LARGE_ROWS + 1, fullLarge.split("\n").length);
+
+		// nothing changed, nothing is written
+		options.outputDir = tempDir.newFolder();
+		Driver.exportAll(dbFile, options);
+		assertEquals(0, options.outputDir.list().length);
+
+		// appended rows are exported on their own, into the delta file
+		Database db = DatabaseBuilder.open(dbFile);
+		try {
+			db.getTable("Large").addRow(null, "appended", 1d, null, true);
+		} finally {
+			db.close();
+		}
+		options.outputDir = tempDir.newFolder();
+		Driver.exportAll(dbFile, options);
+		assertArrayEquals(new String[] { "Large.delta.csv" }, options.outputDir.list());
+		assertEquals("Id,Name,Amount,Created,Flag\n" + (LARGE_ROWS + 1) + ",appended,1.0,,true\n",
+				readFile(new File(options.outputDir, "Large.delta.csv")));
+
+		// a deleted row forces a full export
+		db = DatabaseBuilder.open(dbFile);
+		try {
+			final Table small = db.getTable("Small");
+			final Cursor cursor = CursorBuilder.createCursor(small);
+			cursor.moveToNextRow();
+			cursor.deleteCurrentRow();
+			small.addRow(null, "new", null, null, false);
+		} finally {
+			db.close();
+		}
+		options.outputDir = tempDir.newFolder();
+		Driver.exportAll(dbFile, options);
+		assertArrayEquals(new String[] { "Small.csv" }, options.outputDir.list());
+		assertEquals("Id,Name,Amount,Created,Flag\n"
+				+ "2,\"bar, \"\"quoted\"\"\",,,false\n"
+				+ "3,,-2.0," + new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date(86400000L)) + ",false\n"
+				+ "4,new,,,false\n",
+				readFile(new File(options.outputDir, "Small.csv")));
+
+		// other options export every table again
+		options.columns = Arrays.asList("Id", "Name");
+		options.where = "Flag = true";
+		options.outputDir = tempDir.newFolder();
+		Driver.exportAll(dbFile, options);
+		assertEquals(Arrays.asList("Empty.csv", "Large.csv", "Small.csv"), sortedList(options.outputDir));
+
+		// filtered out appended rows still count as appended
+		db = DatabaseBuilder.open(dbFile);
+		try {
+			db.getTable("Large").addRow(null, "hidden", 1d, null, false);
+		} finally {
+			db.close();
+		}
+		options.outputDir = tempDir.newFolder();
+		Driver.exportAll(dbFile, options);
+		assertEquals("Id,Name\n", readFile(new File(options.outputDir, "Large.delta.csv")));
+
+		// an unchanged table leaves no file of an earlier run behind
+		Driver.exportAll(dbFile, options);
+		assertEquals(0, options.outputDir.list().length);
+
+		// nor does a full export
+		Files.write(new File(options.outputDir, "Large.delta.csv").toPath(), new byte[0]);
+		options.columns = null;
+		Driver.exportAll(dbFile, options);
+		assertEquals(Arrays.asList("Empty.csv", "Large.csv", "Small.csv"), sortedList(options.outputDir));
+	}
+
+	private static List<String> sortedList(final File dir) {
+		final List<String> names = new ArrayList<String>(Arrays.asList(dir.list()));
+		Collections.sort(names);
+		return names;
+	}
+
+	/**
+	 * Test method for {@link access2csv.SnapshotDiff#diff(File, File, String, ExportOptions)}.
+	 */
+	@Test
+	public final void testDiffSnapshots() throws Exception {
+		final File newFile = createSampleDatabase();
+		final File oldFile = new File(tempDir.newFolder(), "old.accdb");
+		Files.copy(newFile.toPath(), oldFile.toPath());
+
+		final Database db = DatabaseBuilder.open(newFile);
+		try {
+			final Table small = db.getTable("Small");
+			final Cursor cursor = CursorBuilder.createCursor(small);
+			cursor.moveToNextRow();
+			cursor.setCurrentRowValue(small.getColumn("Name"), "changed");
+			cursor.moveToNextRow();
+			cursor.deleteCurrentRow();
+			small.addRow(null, "inserted", null, null, true);
+		} finally {
+			db.close();
+		}
+
+		final ExportOptions options = ExportOptions.of(true, tempDir.newFolder(), "", false, "");
+		// change sets are CSV whatever the format
+		options.setFormat("jsonl");
+		final List<SnapshotDiff.TableChanges> changes = SnapshotDiff.diff(oldFile, newFile, null, options);
+
+		assertEquals(3, changes.size());
+		final SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+		assertEquals("op,Id,Name,Amount,Created,Flag\n"
+				+ "U,1,changed,1.5," + iso.format(new Date(0)) + ",true\n"
+				+ "I,4,inserted,,,true\n"
+				+ "D,2,\"bar, \"\"quoted\"\"\",,,false\n",
+				readFile(new File(options.outputDir, "Small.csv")));
+		assertEquals("op,Id,Name,Amount,Created,Flag\n", readFile(new File(options.outputDir, "Large.csv")));
+		assertEquals("op,Id,Name,Amount,Created,Flag\n", readFile(new File(options.outputDir, "Empty.csv")));
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#main(String[])} with --diff to standard output.
+	 */
+	@Test
+	public final void testDiffToStandardOutputFails() throws Exception {
+		final File dbFile = createSampleDatabase();
+		thrown.expect(IllegalArgumentException.class);
+		Driver.main(new String[] { "--input", dbFile.toString(), "--diff", dbFile.toString(), "--output", "-" });
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#main(String[])} with side files to standard output.
+	 */
+	@Test
+	public final void testBinaryFilesToStandardOutputFails() throws Exception {
+		final File dbFile = createSampleDatabase();
+		thrown.expect(IllegalArgumentException.class);
+		Driver.main(new String[] { "--input", dbFile.toString(), "--binary", "files", "--output", "-" });
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#export(File, String, ExportOptions)} with columns and a filter.
+	 */
+	@Test
+	public final void testExportColumnsWhere() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final ExportOptions options = ExportOptions.of(true, testDir, "", false, "");
+		options.columns = Arrays.asList("Name", "Id");
+		options.where = "Id BETWEEN 10 AND 15 AND Flag = true";
+		Driver.export(dbFile, "Large", options);
+
+		assertEquals("Name,Id\nname10,11\nname12,13\nname14,15\n", readFile(new File(testDir, "Large.csv")));
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#export(File, String, ExportOptions)} as JSON Lines.
+	 */
+	@Test
+	public final void testExportJsonLines() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final ExportOptions options = ExportOptions.of(true, testDir, "", true, "NULL");
+		options.setFormat("jsonl");
+		options.columns = Arrays.asList("Id", "Name", "Amount", "Flag");
+		Driver.export(dbFile, "Small", options);
+
+		assertEquals("{\"Id\":1,\"Name\":\"foo\",\"Amount\":1.5,\"Flag\":true}\n"
+				+ "{\"Id\":2,\"Name\":\"bar, \\\"quoted\\\"\",\"Amount\":null,\"Flag\":false}\n"
+				+ "{\"Id\":3,\"Name\":null,\"Amount\":-2.0,\"Flag\":false}\n",
+				readFile(new File(testDir, "Small.jsonl")));
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#export(File, String, ExportOptions)} with binary side files.
+	 */
+	@Test
+	public final void testExportBinarySideFiles() throws Exception {
+		final File dbFile = new File(testDir, "binary.accdb");
+		final byte[] blob = new byte[100000];
+		new Random(7).nextBytes(blob);
+		final Database db = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			final Table table = new TableBuilder("Files").addColumn(new ColumnBuilder("Id", DataType.LONG))
+					.addColumn(new ColumnBuilder("Data", DataType.OLE)).toTable(db);
+			table.addRow(1, blob);
+			table.addRow(2, null);
+			table.addRow(3, new byte[] { 1, 2, 3 });
+		} finally {
+			db.close();
+		}
+
+		final ExportOptions options = ExportOptions.of(false, tempDir.newFolder(), "", false, "");
+		Driver.export(dbFile, "Files", options);
+		assertEquals("1," + Base64.getEncoder().encodeToString(blob) + "\n2,\n3,AQID\n",
+				readFile(new File(options.outputDir, "Files.csv")));
+
+		options.setBinary("files");
+		options.outputDir = tempDir.newFolder();
+		Driver.export(dbFile, "Files", options);
+		assertEquals("1,Files.files/Data/000001.bin;100000\n2,\n3,Files.files/Data/000002.bin;3\n",
+				readFile(new File(options.outputDir, "Files.csv")));
+		assertArrayEquals(blob, Files.readAllBytes(new File(options.outputDir, "Files.files/Data/000001.bin").toPath()));
+		assertArrayEquals(new byte[] { 1, 2, 3 },
+				Files.readAllBytes(new File(options.outputDir, "Files.files/Data/000002.bin").toPath()));
+
+		// a later run into the same directory continues the numbers
+		final ExportOptions rerun = ExportOptions.of(false, options.outputDir, "", false, "");
+		rerun.setBinary("files");
+		Driver.export(dbFile, "Files", rerun);
+		assertEquals("1,Files.files/Data/000003.bin;100000\n2,\n3,Files.files/Data/000004.bin;3\n",
+				readFile(new File(options.outputDir, "Files.csv")));
+		assertArrayEquals(blob, Files.readAllBytes(new File(options.outputDir, "Files.files/Data/000001.bin").toPath()));
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#exportSorted(Cursor, WritableByteChannel, ExportOptions)} on a BYTE column.
+	 */
+	@Test
+	public final void testExportOrderByByte() throws Exception {
+		final File dbFile = new File(testDir, "levels.accdb");
+		final Database db = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			final Table table = new TableBuilder("Levels").addColumn(new ColumnBuilder("Level", DataType.BYTE))
+					.toTable(db);
+			for (final int level : new int[] { 200, 0, 255, 127, 128, 1 }) {
+				table.addRow((byte) level);
+			}
+		} finally {
+			db.close();
+		}
+		final ExportOptions options = ExportOptions.of(false, tempDir.newFolder(), "", false, "");
+		options.orderBy = Arrays.asList("Level");
+		options.sortMemory = 1;
+		options.sortDir = tempDir.newFolder();
+		Driver.export(dbFile, "Levels", options);
+
+		assertEquals("0\n1\n127\n128\n200\n255\n", readFile(new File(options.outputDir, "Levels.csv")));
+	}
+
+	/**
+	 * Test method for {@link access2csv.Driver#exportSorted(Cursor, WritableByteChannel, ExportOptions)}.
+	 */
+	@Test
+	public final void testExportOrderBy() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final ExportOptions options = ExportOptions.of(false, tempDir.newFolder(), "", false, "");
+		options.columns = Arrays.asList("Id", "Name");
+		options.orderBy = Arrays.asList("Flag", "Name");
+		options.sortMemory = 4096;
+		options.sortDir = tempDir.newFolder();
+		Driver.export(dbFile, "Large", options);
+
+		final List<String> expected = new ArrayList<String>();
+		for (int i = 1; i < LARGE_ROWS; i += 2) {
+			expected.add(String.format("%d,name%d", i + 1, i));
+		}
+		for (int i = 0; i < LARGE_ROWS; i += 2) {
+			expected.add(String.format("%d,name%d", i + 1, i));
+		}
+		Collections.sort(expected.subList(0, LARGE_ROWS / 2), Comparator.comparing(line -> line.split(",")[1]));
+		Collections.sort(expected.subList(LARGE_ROWS / 2, LARGE_ROWS),
+				Comparator.comparing(line -> line.split(",")[1]));
+		assertEquals(String.join("\n", expected) + "\n", readFile(new File(options.outputDir, "Large.csv")));
+		assertEquals(0, options.sortDir.list().length);
+
+		// the primary key index already has the order
+		final Table large = DatabaseBuilder.open(dbFile).getTable("Large");
+		try {
+			options.orderBy = Arrays.asList("id");
+			assertTrue(Driver.isOrderedBy(Driver.openCursor(large, options), options.orderBy));
+		} finally {
+			large.getDatabase().close();
+		}
+	}
+
+	/**
+	 * Test method for {@link access2csv.ChunkedRecordWriter}.
+	 */
+	@Test
+	public final void testExportChunkedWithManifest() throws Exception {
+		final File dbFile = createSampleDatabase();
+		final File plainDir = tempDir.newFolder();
+		Driver.exportAll(dbFile, ExportOptions.of(true, plainDir, "", true, ""));
+
+		final ExportOptions options = ExportOptions.of(true, tempDir.newFolder(), "x_", true, "");
+		options.maxRowsPerFile = 200;
+		Driver.exportAll(dbFile, options);
+
+		final String[] lines = readFile(new File(plainDir, "Large.csv")).split("\n");
+		final StringBuilder manifest = new StringBuilder("{\n  \"table\": \"Large\",\n  \"complete\": true,\n"
+				+ "  \"rows\": 500,\n  \"parts\": [");
+		for (int part = 0; part < 3; part++) {
+			final StringBuilder expected = new StringBuilder(lines[0]).append('\n');
+			for (int i = 1 + part * 200; i <= Math.min(LARGE_ROWS, (part + 1) * 200); i++) {
+				expected.append(lines[i]).append('\n');
+			}
+			final File file = new File(options.outputDir, String.format("x_Large.%04d.csv", part));
+			assertEquals(expected.toString(), readFile(file));
+			final CRC32 crc = new CRC32();
+			crc.update(Files.readAllBytes(file.toPath()));
+			manifest.append(part == 0 ? "\n" : ",\n").append(String.format(
+					"    {\"file\": \"%s\", \"rows\": %d, \"bytes\": %d, \"crc32\": \"%08x\"}", file.getName(),
+					part < 2 ? 200 : 100, file.length(), crc.getValue()));
+		}
+		manifest.append("\n  ]\n}\n");
+		assertEquals(manifest.toString(), readFile(new File(options.outputDir, "x_Large.manifest.json")));
+		assertFalse(new File(options.outputDir, "x_Large.0003.csv").exists());
+		assertEquals(readFile(new File(plainDir, "Empty.csv")), readFile(new File(options.outputDir, "x_Empty.0000.csv")));
+
+		// by size, every file holds the header and at least one row
+		options.maxRowsPerFile = 0;
+		options.maxBytesPerFile = 1000;
+		options.outputDir = tempDir.newFolder();
+		Driver.export(dbFile, "Large", options);
+		final StringBuilder joined = new StringBuilder(lines[0]).append('\n');
+		for (int part = 0;; part++) {
+			final File file = new File(options.outputDir, String.format("x_Large.%04d.csv", part));
+			if (!file.exists()) {
+				break;
+			}
+			final String content = readFile(file);
+			assertTrue(content.startsWith(lines[0] + "\n"));
+			assertTrue(content.length() < 1000 + lines[1].length() * 2);
+			joined.append(content.substring(lines[0].length() + 1));
+		}
+		assertEquals(readFile(new File(plainDir, "Large.csv")), joined.toString());
+	}
+
+	static final int LARGE_ROWS = 500;
+
+	/**
+	 * Creates a database with an empty table, a small table and a larger
+	 * table keyed by an autonumber primary key.
+	 */
+	private File createSampleDatabase() throws Exception {
+		final File dbFile = new File(testDir, "sample.accdb");
+		final Database db = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			final Table small = sampleTable("Small").toTable(db);
+			small.addRow(null, "foo", 1.5d, new Date(0), true);
+			small.addRow(null, "bar, \"quoted\"", null, null, false);
+			small.addRow(null, null, -2d, new Date(86400000L), null);
+
+			final Table large = sampleTable("Large").toTable(db);
+			final List<Object[]> rows = new ArrayList<Object[]>();
+			for (int i = 0; i < LARGE_ROWS; i++) {
+				rows.add(new Object[] { null, "name" + i, i * 0.25d, new Date(i * 3600000L), i % 2 == 0 });
+			}
+			large.addRows(rows);
+
+			sampleTable("Empty").toTable(db);
+		} finally {
+			db.close();
+		}
+		return dbFile;
+	}
+
+	private static TableBuilder sampleTable(final String name) {
+		return new TableBuilder(name)
+				.addColumn(new ColumnBuilder("Id", DataType.LONG).setAutoNumber(true))
+				.addColumn(new ColumnBuilder("Name", DataType.TEXT))
+				.addColumn(new ColumnBuilder("Amount", DataType.DOUBLE))
+				.addColumn(new ColumnBuilder("Created", DataType.SHORT_DATE_TIME))
+				.addColumn(new ColumnBuilder("Flag", DataType.BOOLEAN))
+				.setPrimaryKey("Id");
+	}
+
+	private static String readFile(final File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	private static String readGzipFile(final File file) throws Exception {
+		return new String(ParallelGzipChannelTest.gunzip(Files.readAllBytes(file.toPath())), StandardCharsets.UTF_8);
+	}
+
 }
@@ -0,0 +1,69 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link ExternalSort}.
+ */
+public class ExternalSortTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public final void testRowsRoundTripThroughRunFormat() throws Exception {
+		final Object[] row = { null, "text é", 1, 2L, (short) 3, (byte) 4, 5.5d, 6.5f, new BigDecimal("7.25"),
+				true, new Date(8), LocalDateTime.of(2020, 1, 31, 13, 45), new byte[] { 9, -1 } };
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		ExternalSort.writeRow(out, row);
+		ExternalSort.writeRow(out, row);
+		out.close();
+
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (int i = 0; i < 2; i++) {
+			assertArrayEquals(row, ExternalSort.readRow(in, row.length));
+		}
+		assertNull(ExternalSort.readRow(in, row.length));
+	}
+
+	@Test
+	public final void testAttachmentsRoundTrip() throws Exception {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		ExternalSort.writeRow(out, new Object[] { new BinaryCodecs.Attachments(7, new String[] { "a.txt", "b c.png" },
+				new byte[][] { { 1, 2, 3 }, {} }) });
+		out.close();
+
+		final Object[] row = ExternalSort.readRow(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 1);
+		final BinaryCodecs.Attachments attachments = (BinaryCodecs.Attachments) row[0];
+		assertEquals("7", attachments.toString());
+		assertArrayEquals(new String[] { "a.txt", "b c.png" }, attachments.names);
+		assertArrayEquals(new byte[] { 1, 2, 3 }, attachments.data[0]);
+		assertArrayEquals(new byte[0], attachments.data[1]);
+	}
+
+	@Test
+	public final void testCompareValues() {
+		assertTrue(ExternalSort.compareValues(null, 1) < 0);
+		assertTrue(ExternalSort.compareValues("apple", "Banana") < 0);
+		assertTrue(ExternalSort.compareValues("Apple", "apple") < 0);
+		assertTrue(ExternalSort.compareValues(new byte[] { 1 }, new byte[] { -1 }) < 0);
+		assertTrue(ExternalSort.compareValues(2, 10L) < 0);
+		assertTrue(ExternalSort.compareValues((byte) 0, (byte) 200) < 0);
+		assertTrue(ExternalSort.compareValues((byte) 127, (byte) 128) < 0);
+		assertEquals(0, ExternalSort.compareValues((byte) 200, (byte) 200));
+	}
+}
@@ -0,0 +1,176 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.healthmarketscience.jackcess.ColumnBuilder;
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Database;
+import com.healthmarketscience.jackcess.Database.FileFormat;
+import com.healthmarketscience.jackcess.DatabaseBuilder;
+import com.healthmarketscience.jackcess.Table;
+import com.healthmarketscience.jackcess.TableBuilder;
+
+/**
+ * Tests for {@link JdbcSink}, against a connection which records the
+ * statements, batches and commits it receives.
+ */
+public class JdbcSinkTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private final List<String> log = new ArrayList<String>();
+
+	@Test
+	public final void testBatchedInsertsAndCommits() throws Exception {
+		final File dbFile = new File(tempDir.newFolder(), "sink.accdb");
+		final Database db = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			final Table table = new TableBuilder("Orders")
+					.addColumn(new ColumnBuilder("Id", DataType.LONG))
+					.addColumn(new ColumnBuilder("Customer \"A\"", DataType.TEXT).setLengthInUnits(40))
+					.addColumn(new ColumnBuilder("Placed", DataType.SHORT_DATE_TIME))
+					.addColumn(new ColumnBuilder("Total", DataType.MONEY)).toTable(db);
+			for (int i = 1; i <= 5; i++) {
+				table.addRow(i, i == 3 ? null : "c" + i, LocalDateTime.of(2020, 1, i, 12, 0), null);
+			}
+
+			final ExportOptions options = new ExportOptions();
+			options.sink = "jdbc:test";
+			options.sinkBatchSize = 2;
+			options.sinkCommitRows = 3;
+			final TableExportStats stats = JdbcSink.exportTable(table, connection(), options);
+			assertEquals(5, stats.rows);
+		} finally {
+			db.close();
+		}
+
+		assertEquals(Arrays.asList(
+				"execute CREATE TABLE \"Orders\" (\"Id\" INTEGER, \"Customer \"\"A\"\"\" VARCHAR(40), "
+						+ "\"Placed\" TIMESTAMP, \"Total\" DECIMAL(19,4))",
+				"prepare INSERT INTO \"Orders\" (\"Id\", \"Customer \"\"A\"\"\", \"Placed\", \"Total\") VALUES (?, ?, ?, ?)",
+				"row [1, c1, 2020-01-01 12:00:00.0, null]", "row [2, c2, 2020-01-02 12:00:00.0, null]",
+				"executeBatch", "row [3, null, 2020-01-03 12:00:00.0, null]", "executeBatch", "commit",
+				"row [4, c4, 2020-01-04 12:00:00.0, null]", "row [5, c5, 2020-01-05 12:00:00.0, null]",
+				"executeBatch", "commit"), log);
+	}
+
+	@Test
+	public final void testOrderByWithoutIndexIsSorted() throws Exception {
+		final File dbFile = new File(tempDir.newFolder(), "sorted.accdb");
+		final Database db = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			final Table table = new TableBuilder("Items").addColumn(new ColumnBuilder("Id", DataType.LONG))
+					.addColumn(new ColumnBuilder("Rank", DataType.LONG)).toTable(db);
+			table.addRow(1, 30);
+			table.addRow(2, 10);
+			table.addRow(3, 20);
+
+			final ExportOptions options = new ExportOptions();
+			options.sink = "jdbc:test";
+			options.orderBy = Arrays.asList("Rank");
+			options.columns = Arrays.asList("Id");
+			assertEquals(3, JdbcSink.exportTable(table, connection(), options).rows);
+		} finally {
+			db.close();
+		}
+
+		assertEquals(Arrays.asList("row [2, null, null, null]", "row [3, null, null, null]",
+				"row [1, null, null, null]"), log.subList(2, 5));
+	}
+
+	@Test
+	public final void testByteIsUnsigned() throws Exception {
+		final File dbFile = new File(tempDir.newFolder(), "bytes.accdb");
+		final Database db = DatabaseBuilder.create(FileFormat.V2016, dbFile);
+		try {
+			final Table table = new TableBuilder("Levels").addColumn(new ColumnBuilder("Level", DataType.BYTE))
+					.toTable(db);
+			table.addRow((byte) 200);
+			table.addRow((byte) 7);
+
+			final ExportOptions options = new ExportOptions();
+			options.sink = "jdbc:test";
+			JdbcSink.exportTable(table, connection(), options);
+		} finally {
+			db.close();
+		}
+
+		assertEquals("execute CREATE TABLE \"Levels\" (\"Level\" SMALLINT)", log.get(0));
+		assertEquals(Arrays.asList("row [200, null, null, null]", "row [7, null, null, null]"), log.subList(2, 4));
+	}
+
+	/**
+	 * A connection without existing tables, logging what it is asked to do.
+	 */
+	private Connection connection() {
+		final Object[] row = new Object[4];
+		final ResultSet noTables = proxy(ResultSet.class, (name, args) -> name.equals("next") ? false : null);
+		final DatabaseMetaData metaData = proxy(DatabaseMetaData.class,
+				(name, args) -> name.equals("getTables") ? noTables : null);
+		final PreparedStatement insert = proxy(PreparedStatement.class, (name, args) -> {
+			if (name.startsWith("set")) {
+				final Object value = name.equals("setNull") ? null : args[1];
+				row[(Integer) args[0] - 1] = value instanceof Timestamp ? value.toString() : value;
+			} else if (name.equals("addBatch")) {
+				log.add("row " + Arrays.toString(row));
+			} else if (name.equals("executeBatch")) {
+				log.add(name);
+				return new int[0];
+			}
+			return null;
+		});
+		final Statement statement = proxy(Statement.class, (name, args) -> {
+			if (name.equals("execute")) {
+				log.add("execute " + args[0]);
+				return true;
+			}
+			return null;
+		});
+		return proxy(Connection.class, (name, args) -> {
+			switch (name) {
+			case "getMetaData":
+				return metaData;
+			case "createStatement":
+				return statement;
+			case "prepareStatement":
+				log.add("prepare " + args[0]);
+				return insert;
+			case "getAutoCommit":
+				return true;
+			case "commit":
+				log.add(name);
+				return null;
+			default:
+				return null;
+			}
+		});
+	}
+
+	interface Handler {
+		Object invoke(String name, Object[] args);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(final Class<T> type, final Handler handler) {
+		return (T) Proxy.newProxyInstance(JdbcSinkTest.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> handler.invoke(method.getName(), args));
+	}
+}
@@ -0,0 +1,33 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LongLongMap}.
+ */
+public class LongLongMapTest {
+
+	@Test
+	public final void testGrowKeepsEntriesAndMarks() {
+		final LongLongMap map = new LongLongMap(1);
+		for (long key = -5000; key < 5000; key++) {
+			map.put(key * 7, key);
+		}
+		map.mark(map.slot(0));
+		map.put(42 * 7, -1);
+		for (long key = 5000; key < 20000; key++) {
+			map.put(key * 7, key);
+		}
+
+		assertEquals(25000, map.size());
+		for (long key = -5000; key < 20000; key++) {
+			final int slot = map.slot(key * 7);
+			assertTrue(slot >= 0);
+			assertEquals(key == 42 ? -1 : key, map.value(slot));
+			assertEquals(key == 0, map.isMarked(slot));
+		}
+		assertEquals(-1, map.slot(3));
+	}
+}
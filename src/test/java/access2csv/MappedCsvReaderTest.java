@@ -0,0 +1,121 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.RFC4180ParserBuilder;
+
+/**
+ * Tests for {@link MappedCsvReader}.
+ */
+public class MappedCsvReaderTest {
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public final void testMatchesOpenCsv() throws Exception {
+		final Random random = new Random(42);
+		final String[] pieces = { "a", "bc", "ü€", "\"", "\"\"", ",", ";", "\n", "\r\n", " ", "" };
+		for (int round = 0; round < 200; round++) {
+			final StringBuilder csv = new StringBuilder();
+			for (int line = random.nextInt(20); line >= 0; line--) {
+				for (int value = random.nextInt(5); value >= 0; value--) {
+					if (random.nextBoolean()) {
+						csv.append('"');
+						for (int i = random.nextInt(6); i >= 0; i--) {
+							final String piece = pieces[random.nextInt(pieces.length)];
+							csv.append("\"".equals(piece) ? "\"\"" : piece);
+						}
+						csv.append('"');
+					} else {
+						for (int i = random.nextInt(4); i >= 0; i--) {
+							csv.append(pieces[random.nextInt(3)]);
+						}
+					}
+					csv.append(value > 0 ? ";" : "");
+				}
+				csv.append(line > 0 || random.nextBoolean() ? random.nextBoolean() ? "\n" : "\r\n" : "");
+			}
+			final String text = csv.toString();
+			assertRecords(text, read(new CSVReaderBuilder(new StringReader(text))
+					.withCSVParser(new RFC4180ParserBuilder().withSeparator(';').build()).build()),
+					read(text, ';', 1 + random.nextInt(16)));
+		}
+	}
+
+	@Test
+	public final void testRecordsCrossingWindows() throws Exception {
+		final StringBuilder csv = new StringBuilder("Id,Note\r\n");
+		final List<String> notes = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			final StringBuilder note = new StringBuilder();
+			for (int j = 0; j < i; j++) {
+				note.append(j % 10 == 0 ? "\"" : "x");
+			}
+			notes.add(note.toString());
+			csv.append(i).append(",\"").append(note.toString().replace("\"", "\"\"")).append("\"\r\n");
+		}
+		final List<String[]> records = read(csv.toString(), ',', 16);
+		assertEquals(101, records.size());
+		assertArrayEquals(new String[] { "Id", "Note" }, records.get(0));
+		for (int i = 0; i < 100; i++) {
+			assertArrayEquals(new String[] { String.valueOf(i), notes.get(i) }, records.get(i + 1));
+		}
+	}
+
+	@Test
+	public final void testSupports() {
+		assertTrue(MappedCsvReader.supports(',', StandardCharsets.UTF_8));
+		assertTrue(MappedCsvReader.supports('\t', StandardCharsets.ISO_8859_1));
+		assertFalse(MappedCsvReader.supports(',', StandardCharsets.UTF_16));
+		assertFalse(MappedCsvReader.supports('§', StandardCharsets.UTF_8));
+		assertFalse(MappedCsvReader.supports(',', Charset.forName("UTF-32")));
+	}
+
+	private List<String[]> read(final String csv, final char delimiter, final long windowSize) throws Exception {
+		final File file = tempDir.newFile();
+		Files.write(file.toPath(), csv.getBytes(StandardCharsets.UTF_8));
+		final List<String[]> records = new ArrayList<String[]>();
+		final MappedCsvReader reader = new MappedCsvReader(file, delimiter, StandardCharsets.UTF_8, windowSize);
+		try {
+			String[] record;
+			while ((record = reader.readNext()) != null) {
+				records.add(record);
+			}
+		} finally {
+			reader.close();
+		}
+		return records;
+	}
+
+	private static List<String[]> read(final CSVReader reader) throws Exception {
+		final List<String[]> records = new ArrayList<String[]>();
+		String[] record;
+		while ((record = reader.readNext()) != null) {
+			records.add(record);
+		}
+		return records;
+	}
+
+	private static void assertRecords(final String message, final List<String[]> expected,
+			final List<String[]> actual) {
+		assertEquals(message, expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertArrayEquals(message, expected.get(i), actual.get(i));
+		}
+	}
+}
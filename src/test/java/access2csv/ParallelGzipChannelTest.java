@@ -0,0 +1,65 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ParallelGzipChannel}.
+ */
+public class ParallelGzipChannelTest {
+
+	@Test
+	public final void testManyBlocksDecompressAsOneStream() throws Exception {
+		final byte[] data = new byte[100000];
+		final Random random = new Random(42);
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) ('a' + random.nextInt(8));
+		}
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		final ParallelGzipChannel channel = new ParallelGzipChannel(Channels.newChannel(compressed), 4, 1000);
+		for (int offset = 0; offset < data.length; offset += 777) {
+			channel.write(ByteBuffer.wrap(data, offset, Math.min(777, data.length - offset)));
+		}
+		channel.close();
+
+		assertFalse(channel.isOpen());
+		assertEquals(data.length, channel.getBytesIn());
+		assertEquals(compressed.size(), channel.getBytesOut());
+		assertArrayEquals(data, gunzip(compressed.toByteArray()));
+	}
+
+	@Test
+	public final void testEmptyStreamIsValidGzip() throws Exception {
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		new ParallelGzipChannel(Channels.newChannel(compressed), 2).close();
+
+		assertTrue(compressed.size() > 0);
+		assertEquals(0, gunzip(compressed.toByteArray()).length);
+	}
+
+	@Test
+	public final void testPoolGrowsForMoreThreads() {
+		final int threads = ((ThreadPoolExecutor) ParallelGzipChannel.pool(1)).getMaximumPoolSize();
+		assertEquals(threads + 3, ((ThreadPoolExecutor) ParallelGzipChannel.pool(threads + 3)).getMaximumPoolSize());
+		assertEquals(threads + 3, ((ThreadPoolExecutor) ParallelGzipChannel.pool(1)).getCorePoolSize());
+	}
+
+	static byte[] gunzip(final byte[] compressed) throws Exception {
+		final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+		try {
+			return IOUtils.toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.healthmarketscience.jackcess.ColumnBuilder;
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Database;
+import com.healthmarketscience.jackcess.Row;
+import com.healthmarketscience.jackcess.Table;
+import com.healthmarketscience.jackcess.TableBuilder;
+
+/**
+ * Tests for {@link ParallelImport}.
+ */
+public class ParallelImportTest {
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public final void testChunksEndAtRecordBoundaries() throws Exception {
+		final String csv = "1,\"two\nlines\"\n2,\"a \"\"quoted\"\"\nvalue\"\n3,plain\n4,\"\n\n\"\n5,last";
+		final ParallelImport.RecordChunker chunker = new ParallelImport.RecordChunker(new StringReader(csv), 4);
+		final StringBuilder joined = new StringBuilder();
+		int count = 0;
+		String chunk;
+		while ((chunk = chunker.next()) != null) {
+			joined.append(chunk);
+			count++;
+			if (joined.length() < csv.length()) {
+				assertTrue(chunk, chunk.endsWith("\n"));
+				assertEquals(chunk, 0, quotes(chunk) % 2);
+			}
+		}
+		assertEquals(csv, joined.toString());
+		assertTrue(count > 2);
+	}
+
+	@Test
+	public final void testLoadKeepsFileOrder() throws Exception {
+		final StringBuilder csv = new StringBuilder();
+		for (int i = 1; i <= 500; i++) {
+			csv.append(i).append(',').append(i % 50 == 0 ? "x" + i : String.valueOf(i * 2)).append(",\"note\n")
+					.append(i).append("\"\n");
+		}
+		final File rejectsFile = new File(tempDir.getRoot(), "rejects.csv");
+		final RejectSink rejects = new RejectSink(rejectsFile, new ImportOptions());
+		final ValidatingImportFilter filter = new ValidatingImportFilter(rejects) {
+		};
+		final ImportSchemaFile amount = new ImportSchemaFile();
+		amount.setcolumn("Amount");
+		amount.setdatatype("NUMERIC");
+		filter.validator = SchemaValidator.compile(Arrays.asList(amount), Arrays.asList("Id", "Amount", "Note"));
+
+		final Database db = BulkImporter.open(new File(tempDir.getRoot(), "parallel.accdb"));
+		try {
+			final Table table = new TableBuilder("parallel").addColumn(new ColumnBuilder("Id", DataType.LONG))
+					.addColumn(new ColumnBuilder("Amount", DataType.LONG))
+					.addColumn(new ColumnBuilder("Note", DataType.MEMO)).toTable(db);
+			final BulkImporter.RowBatch batch = new BulkImporter.RowBatch(table, 64, null);
+			ParallelImport.load(new StringReader(csv.toString()), ',', new boolean[] { false, false, true }, filter,
+					batch, 4, 100);
+			assertEquals(490, batch.finish());
+			rejects.close();
+
+			int expected = 1;
+			for (final Row row : table) {
+				if (expected % 50 == 0) {
+					expected++;
+				}
+				assertEquals(expected, row.get("Id"));
+				assertEquals(expected * 2, row.get("Amount"));
+				assertEquals("note\n" + expected, row.get("Note"));
+				expected++;
+			}
+			assertEquals(500, expected);
+		} finally {
+			db.close();
+		}
+		final List<String> rejected = new ArrayList<String>();
+		for (final String line : Files.readAllLines(rejectsFile.toPath(), StandardCharsets.UTF_8)) {
+			if (line.contains(",Amount,")) {
+				rejected.add(line.substring(0, line.indexOf(',')));
+			}
+		}
+		assertEquals(Arrays.asList("50", "100", "150", "200", "250", "300", "350", "400", "450", "500"), rejected);
+	}
+
+	private static int quotes(final String text) {
+		int quotes = 0;
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) == '"') {
+				quotes++;
+			}
+		}
+		return quotes;
+	}
+}
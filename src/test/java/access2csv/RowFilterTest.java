@@ -0,0 +1,145 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.healthmarketscience.jackcess.ColumnBuilder;
+import com.healthmarketscience.jackcess.Cursor;
+import com.healthmarketscience.jackcess.DataType;
+import com.healthmarketscience.jackcess.Database;
+import com.healthmarketscience.jackcess.Database.FileFormat;
+import com.healthmarketscience.jackcess.DatabaseBuilder;
+import com.healthmarketscience.jackcess.IndexBuilder;
+import com.healthmarketscience.jackcess.IndexCursor;
+import com.healthmarketscience.jackcess.Table;
+import com.healthmarketscience.jackcess.TableBuilder;
+
+/**
+ * Tests for {@link RowFilter}.
+ */
+public class RowFilterTest {
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private Database db;
+	private Table table;
+
+	@Before
+	public void setUp() throws Exception {
+		db = DatabaseBuilder.create(FileFormat.V2016, new File(tempDir.getRoot(), "filter.accdb"));
+		table = new TableBuilder("Orders")
+				.addColumn(new ColumnBuilder("Id", DataType.LONG).setAutoNumber(true))
+				.addColumn(new ColumnBuilder("Customer", DataType.TEXT))
+				.addColumn(new ColumnBuilder("Amount", DataType.DOUBLE))
+				.addColumn(new ColumnBuilder("Placed", DataType.SHORT_DATE_TIME))
+				.addIndex(new IndexBuilder(IndexBuilder.PRIMARY_KEY_NAME).addColumns("Id").setPrimaryKey())
+				.addIndex(new IndexBuilder("CustomerPlaced").addColumns("Customer", "Placed"))
+				.toTable(db);
+		for (int i = 0; i < 100; i++) {
+			table.addRow(null, "customer" + (i % 10), i * 1.5d, new Date(i * 86400000L));
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		db.close();
+	}
+
+	private List<Integer> ids(final String where) throws Exception {
+		final RowFilter filter = RowFilter.parse(where, table);
+		final RowReader reader = new RowReader(filter.openCursor(table), table.getColumns(), filter);
+		final List<Integer> ids = new ArrayList<Integer>();
+		while (reader.next()) {
+			ids.add((Integer) reader.values()[0]);
+		}
+		return ids;
+	}
+
+	@Test
+	public final void testComparisons() throws Exception {
+		assertEquals("[3, 4, 5]", ids("Id BETWEEN 3 AND 5").toString());
+		assertEquals("[98, 99, 100]", ids("id >= 98").toString());
+		assertEquals("[1, 2]", ids("Amount < 3").toString());
+		assertEquals("[4, 8]", ids("Id IN (8, 4, 200) AND Amount != 0").toString());
+		assertEquals("[8, 18]", ids("Customer = 'CUSTOMER7' AND [Id] <= 20").toString());
+		assertEquals("[3, 4]", ids("Placed BETWEEN '1970-01-03' AND '1970-01-04T00:00:00'").toString());
+	}
+
+	@Test
+	public final void testIndexRangeIsUsed() throws Exception {
+		final Cursor byKey = RowFilter.parse("Id > 10 AND Amount > 0", table).openCursor(table);
+		assertTrue(byKey instanceof IndexCursor);
+		assertEquals("Id", ((IndexCursor) byKey).getIndex().getColumns().get(0).getName());
+
+		final Cursor byCustomer = RowFilter.parse("Id > 10 AND Customer IN ('customer1', 'customer2')", table)
+				.openCursor(table);
+		assertEquals("CustomerPlaced", ((IndexCursor) byCustomer).getIndex().getName());
+		assertEquals("[12, 13, 22, 23, 32, 33, 42, 43, 52, 53, 62, 63, 72, 73, 82, 83, 92, 93]",
+				sorted(ids("Id > 10 AND Customer IN ('customer1', 'customer2')")).toString());
+
+		assertFalse(RowFilter.parse("Amount > 10", table).openCursor(table) instanceof IndexCursor);
+	}
+
+	private static List<Integer> sorted(final List<Integer> ids) {
+		final List<Integer> copy = new ArrayList<Integer>(ids);
+		Collections.sort(copy);
+		return copy;
+	}
+
+	@Test
+	public final void testByteIsUnsigned() throws Exception {
+		final Table levels = new TableBuilder("Levels").addColumn(new ColumnBuilder("Id", DataType.LONG))
+				.addColumn(new ColumnBuilder("Indexed", DataType.BYTE)).addColumn(new ColumnBuilder("Plain", DataType.BYTE))
+				.addIndex(new IndexBuilder("Indexed").addColumns("Indexed")).toTable(db);
+		final int[] values = { 0, 100, 127, 128, 200, 255 };
+		for (int i = 0; i < values.length; i++) {
+			levels.addRow(i, (byte) values[i], (byte) values[i]);
+		}
+		for (final String column : new String[] { "Indexed", "Plain" }) {
+			final RowFilter filter = RowFilter.parse(column + " > 100 AND " + column + " <> 255", levels);
+			final RowReader reader = new RowReader(filter.openCursor(levels), levels.getColumns(), filter);
+			final List<Integer> ids = new ArrayList<Integer>();
+			while (reader.next()) {
+				ids.add((Integer) reader.values()[0]);
+			}
+			assertEquals(column, "[2, 3, 4]", sorted(ids).toString());
+		}
+	}
+
+	@Test
+	public final void testOutOfRangeLiteral() throws Exception {
+		final Table levels = new TableBuilder("Levels").addColumn(new ColumnBuilder("Level", DataType.BYTE))
+				.addColumn(new ColumnBuilder("Count", DataType.INT)).toTable(db);
+		for (final String where : new String[] { "Level = 300", "Level = -1", "Count = 70000" }) {
+			try {
+				RowFilter.parse(where, levels);
+				fail(where);
+			} catch (final IllegalArgumentException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("is not a valid value"));
+			}
+		}
+		RowFilter.parse("Level = 255 AND Count = -32768", levels);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public final void testUnknownColumn() {
+		RowFilter.parse("Missing = 1", table);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public final void testSyntaxError() {
+		RowFilter.parse("Id BETWEEN 1", table);
+	}
+}
@@ -0,0 +1,57 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link RowRing}.
+ */
+public class RowRingTest {
+
+	@Test(timeout = 10000)
+	public final void testRowsPassInOrderThroughSmallRing() throws Exception {
+		final RowRing ring = new RowRing(8, 1);
+		assertEquals(8, ring.capacity());
+		final int count = 100000;
+		final Thread producer = new Thread(() -> {
+			try {
+				for (int i = 0; i < count; i++) {
+					ring.claim()[0] = i;
+					ring.publish();
+				}
+				ring.finish();
+			} catch (final IOException e) {
+				ring.abort(e);
+			}
+		});
+		producer.start();
+
+		int expected = 0;
+		Object[] row;
+		while ((row = ring.take()) != null) {
+			assertEquals(expected++, row[0]);
+			ring.release();
+		}
+		producer.join();
+		assertEquals(count, expected);
+	}
+
+	@Test(timeout = 10000)
+	public final void testAbortWakesBlockedProducer() throws Exception {
+		final RowRing ring = new RowRing(2, 1);
+		for (int i = 0; i < ring.capacity(); i++) {
+			ring.claim();
+			ring.publish();
+		}
+		ring.abort(new IllegalStateException("consumer failed"));
+		try {
+			ring.claim();
+			fail("Expected the aborted ring to fail");
+		} catch (final IOException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.healthmarketscience.jackcess.DataType;
+
+/**
+ * Tests for {@link SchemaValidator}.
+ */
+public class SchemaValidatorTest {
+
+	@Test
+	public final void testIsNumericMatchesPattern() {
+		final Pattern pattern = Pattern.compile("-?\\d+(\\.\\d+)?");
+		for (final String value : new String[] { "", "-", "0", "-12", "12.5", "-0.001", "1.", ".5", "1.2.3", "1e5",
+				"+1", " 1", "1 ", "--1", "12a", "٣" }) {
+			assertEquals(value, pattern.matcher(value).matches(), SchemaValidator.isNumeric(value));
+		}
+	}
+
+	@Test
+	public final void testValidateReportsLastInvalidValue() {
+		final SchemaValidator validator = SchemaValidator.compile(
+				Arrays.asList(entry("column", "datatype"), entry("amount", "NUMERIC"), entry("Code", "TEXT"),
+						entry("Missing", "NUMERIC"), entry("Count", "LONG")),
+				Arrays.asList("Id", "Amount", "Code", "Count"));
+
+		assertNull(validator.validate(new Object[] { "1", "12.5", "abc", "7" }));
+		assertNull(validator.validate(new Object[] { "1", null }));
+
+		final RowDataImportError amount = validator.validate(new Object[] { "1", "12,5", "abc", "2" });
+		assertEquals(1, amount.ColumnNum);
+		assertEquals("amount", amount.ColumnName);
+		assertEquals(DataType.NUMERIC, amount.DataTypeDefined);
+		assertEquals("Data Type (NUMERIC) Mismatch -> value -> 12,5", amount.ErrorMessage);
+
+		final char[] longText = new char[600];
+		Arrays.fill(longText, 'x');
+		final RowDataImportError code = validator.validate(new Object[] { "1", "x", new String(longText), "2" });
+		assertEquals(2, code.ColumnNum);
+		assertEquals("Code", code.ColumnName);
+		assertTrue(code.hasErrors());
+	}
+
+	@Test
+	public final void testValidateTypedColumns() {
+		final ImportSchemaFile code = entry("Code", "TEXT");
+		code.setlength("3");
+		final SchemaValidator validator = SchemaValidator.compile(
+				Arrays.asList(entry("Count", "LONG"), entry("Price", "DOUBLE"), entry("Day", "SHORT_DATE_TIME"), code),
+				Arrays.asList("Count", "Price", "Day", "Code"));
+
+		final Object[] row = { "-2147483648", "1.5e3", "2020-01-31 13:45:00", "abc" };
+		assertNull(validator.validate(row));
+		assertEquals(Date.from(LocalDateTime.of(2020, 1, 31, 13, 45).atZone(ZoneId.systemDefault()).toInstant()),
+				row[2]);
+		final Object[] empty = { "", "", "", "" };
+		assertNull(validator.validate(empty));
+		assertArrayEquals(new Object[] { null, null, null, "" }, empty);
+
+		assertEquals("Count", validator.validate(new Object[] { "2147483648", "1", "2020-01-31", "a" }).ColumnName);
+		assertEquals("Price", validator.validate(new Object[] { "1", "1,5", "2020-01-31", "a" }).ColumnName);
+		assertEquals("Day", validator.validate(new Object[] { "1", "1", "31/01/2020", "a" }).ColumnName);
+		assertEquals("Data Length (4 > 3) -> Data (abcd)",
+				validator.validate(new Object[] { "1", "1", "2020-01-31T13:45", "abcd" }).ErrorMessage);
+	}
+
+	private static ImportSchemaFile entry(final String column, final String datatype) {
+		final ImportSchemaFile entry = new ImportSchemaFile();
+		entry.setcolumn(column);
+		entry.setdatatype(datatype);
+		return entry;
+	}
+}
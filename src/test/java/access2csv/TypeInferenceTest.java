@@ -0,0 +1,52 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link TypeInference}.
+ */
+public class TypeInferenceTest {
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public final void testInferNarrowestTypes() throws Exception {
+		final StringBuilder csv = new StringBuilder("Id,Price,Day,Zip,Name,Notes,Empty,Mixed\n");
+		final StringBuilder longNote = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			longNote.append('n');
+		}
+		for (int i = 0; i < 5000; i++) {
+			csv.append(i).append(',').append(i % 3 == 0 ? i : i + 0.25).append(",2020-01-")
+					.append(String.format("%02d", i % 28 + 1)).append(i % 2 == 0 ? "" : " 10:00:00").append(',')
+					.append(String.format("%05d", i)).append(",name").append(i % 10).append(',')
+					.append(i % 100 == 0 ? longNote : "short").append(",,").append(i > 1000 && i % 10 == 5 ? "x" : "1").append('\n');
+		}
+		final File csvFile = tempDir.newFile("sample.csv");
+		Files.write(csvFile.toPath(), csv.toString().getBytes(Charset.defaultCharset()));
+
+		final List<ImportSchemaFile> schema = TypeInference.infer(csvFile, ',', 100, new Random(7));
+		assertEquals("[{Id::LONG}, {Price::DOUBLE}, {Day::SHORT_DATE_TIME}, {Zip::TEXT}, {Name::TEXT}, {Notes::MEMO}, "
+				+ "{Empty::TEXT}, {Mixed::TEXT}]", schema.toString());
+		assertEquals("10", schema.get(3).getlength());
+		assertEquals("10", schema.get(4).getlength());
+		assertEquals("255", schema.get(6).getlength());
+
+		final File schemaFile = new File(tempDir.getRoot(), "sample.csv.schema");
+		TypeInference.write(schema, schemaFile);
+		final List<ImportSchemaFile> loaded = Driver.loadSchemafile(schemaFile);
+		assertEquals(schema.toString(), loaded.toString());
+		assertEquals(10, loaded.get(4).toLength());
+		assertEquals(0, loaded.get(0).toLength());
+	}
+}
@@ -0,0 +1,101 @@
+package access2csv;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ValueCodecs}.
+ */
+public class ValueCodecsTest {
+
+	@Test
+	public final void testDecimalCodec() throws Exception {
+		final ValueCodec codec = new ValueCodecs.DecimalCodec();
+		assertEquals("12.3400,-0.05,0.0000001,0,1200,-7,123456789012345678901234.5", write(codec,
+				new BigDecimal("12.3400"), new BigDecimal("-0.05"), new BigDecimal("1E-7"), BigDecimal.ZERO,
+				new BigDecimal("1.2E+3"), new BigDecimal("-7"), new BigDecimal("123456789012345678901234.5")));
+	}
+
+	@Test
+	public final void testIntegralCodecByteIsUnsigned() throws Exception {
+		assertEquals("0,127,128,200,255,-3,70000", write(ValueCodecs.INTEGRAL, (byte) 0, (byte) 127, (byte) 128,
+				(byte) 200, (byte) 255, (short) -3, 70000));
+	}
+
+	@Test
+	public final void testFloatingPointCodecMatchesToString() throws Exception {
+		final double[] values = { 0d, -0d, 1d, -2d, 1.5d, 9999999d, 1e7d, 1e-5d, 123456.789d, Double.NaN };
+		final StringBuilder expected = new StringBuilder();
+		final Object[] boxed = new Object[values.length];
+		for (int i = 0; i < values.length; i++) {
+			expected.append(i == 0 ? "" : ",").append(Double.toString(values[i]));
+			boxed[i] = values[i];
+		}
+		assertEquals(expected.toString(), write(new ValueCodecs.FloatingPointCodec(false), boxed));
+		assertEquals("0.1,3.0", write(new ValueCodecs.FloatingPointCodec(true), 0.1f, 3f));
+	}
+
+	@Test
+	public final void testIsoDateCodec() throws Exception {
+		final ValueCodec codec = new ValueCodecs.IsoDateCodec(TimeZone.getTimeZone("GMT+02:00"));
+		assertEquals("1970-01-01T02:00:00,2000-02-29T23:59:59.250,1899-12-30T00:00:00,0100-03-01T08:30:00",
+				write(codec, new Date(0), new Date(951861599250L), new Date(-2209168800000L),
+						LocalDateTime.of(100, 3, 1, 8, 30)));
+	}
+
+	@Test
+	public final void testBase64Codec() throws Exception {
+		final StringBuilder expected = new StringBuilder();
+		final Object[] values = new Object[8];
+		for (int i = 0; i < values.length; i++) {
+			final byte[] bytes = new byte[i];
+			for (int b = 0; b < i; b++) {
+				bytes[b] = (byte) (b * 97 - 128);
+			}
+			values[i] = bytes;
+			expected.append(i == 0 ? "" : ",").append(Base64.getEncoder().encodeToString(bytes));
+		}
+		assertEquals(expected.toString(), write(BinaryCodecs.BASE64_CODEC, values));
+	}
+
+	@Test
+	public final void testBase64CodecAttachmentWithoutData() throws Exception {
+		final BinaryCodecs.Attachments attachments = new BinaryCodecs.Attachments(1,
+				new String[] { "a.txt", "b.txt" }, new byte[][] { null, { 1, 2, 3 } });
+		assertEquals("a.txt: b.txt:AQID", write(BinaryCodecs.BASE64_CODEC, attachments));
+	}
+
+	@Test
+	public final void testJoinedChars() {
+		final BinaryCodecs.JoinedChars chars = new BinaryCodecs.JoinedChars(
+				Arrays.<CharSequence>asList("a.txt:", new BinaryCodecs.Base64Chars(new byte[] { 1, 2, 3 }), "", " ",
+						"b.txt:", new BinaryCodecs.Base64Chars(new byte[0])));
+		assertEquals("a.txt:AQID b.txt:", chars.toString());
+		assertEquals(17, chars.length());
+		assertEquals('A', chars.charAt(6));
+		assertEquals('a', chars.charAt(0));
+		assertEquals(':', chars.charAt(16));
+	}
+
+	private static String write(final ValueCodec codec, final Object... values) throws Exception {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final CsvChannelWriter writer = new CsvChannelWriter(Channels.newChannel(bytes), StandardCharsets.UTF_8,
+				false);
+		for (final Object value : values) {
+			codec.write(value, writer);
+		}
+		writer.close();
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+}